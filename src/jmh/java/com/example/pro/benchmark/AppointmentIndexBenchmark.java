@@ -0,0 +1,80 @@
+package com.example.pro.benchmark;
+
+import com.example.pro.entity.Appointment;
+import com.example.pro.scheduling.AppointmentIndex;
+import com.example.pro.scheduling.AppointmentIntervals;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes and overlap checks on the appointment index of one practitioner, up to tens of thousands of appointments.
+ * A booking is indexed then cancelled, either after the whole history, as bookings usually are, or before it, which
+ * moves every indexed appointment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AppointmentIndexBenchmark {
+
+    @Param({"250", "1250", "6250"})
+    private int days;
+
+    private AppointmentIndex index;
+    private AppointmentIntervals intervals;
+    private Appointment future;
+    private Appointment past;
+    private LocalDateTime middle;
+
+    @Setup
+    public void setUp() {
+        // about 19 appointments a day, 120,000 on the longest calendar
+        List<Appointment> appointments = CalendarData.appointments(1, days, 0.6, false, 42);
+        for (int i = 0; i < appointments.size(); i++) {
+            appointments.get(i).setId(i + 1);
+        }
+        index = new AppointmentIndex(1);
+        intervals = index.get(1, () -> appointments);
+        LocalDateTime afterLast = CalendarData.FIRST_DAY.plusDays(days);
+        future = Appointment.builder().id(appointments.size() + 1).practitionerId(1).patientId(1)
+                .startDate(afterLast).endDate(afterLast.plusMinutes(15)).build();
+        LocalDateTime beforeFirst = CalendarData.FIRST_DAY.minusDays(1);
+        past = Appointment.builder().id(appointments.size() + 2).practitionerId(1).patientId(1)
+                .startDate(beforeFirst).endDate(beforeFirst.plusMinutes(15)).build();
+        middle = CalendarData.FIRST_DAY.plusDays(days / 2).plusHours(3);
+    }
+
+    @Benchmark
+    public int bookAndCancelInTheFuture() {
+        index.saved(future);
+        index.removed(future);
+        return intervals.size();
+    }
+
+    @Benchmark
+    public int bookAndCancelBeforeTheHistory() {
+        index.saved(past);
+        index.removed(past);
+        return intervals.size();
+    }
+
+    @Benchmark
+    public boolean overlaps() {
+        return intervals.overlaps(middle, middle.plusMinutes(30));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.pro.benchmark;
+
+import com.example.pro.ProApplication;
+import com.example.pro.entity.Appointment;
+import com.example.pro.entity.Availability;
+import com.example.pro.repository.AppointmentRepository;
+import com.example.pro.repository.AvailabilityRepository;
+import com.example.pro.scheduling.AvailabilitySweep;
+import com.example.pro.service.CalendarWindow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-practitioner range queries against an H2 database holding the calendars of many practitioners.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvailabilityQueryBenchmark {
+    private static final int FIRST_PRACTITIONER_ID = 1_000_000;
+    private static final int DAYS = 60;
+
+    @Param({"100", "1000"})
+    private int practitioners;
+
+    private ConfigurableApplicationContext context;
+    private AvailabilityRepository availabilityRepository;
+    private AppointmentRepository appointmentRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ProApplication.class).web(WebApplicationType.NONE).run();
+        availabilityRepository = context.getBean(AvailabilityRepository.class);
+        appointmentRepository = context.getBean(AppointmentRepository.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        for (int practitionerId = FIRST_PRACTITIONER_ID; practitionerId < FIRST_PRACTITIONER_ID + practitioners; practitionerId++) {
+            List<Appointment> appointments = CalendarData.appointments(practitionerId, DAYS, 0.3, true, practitionerId);
+            List<Availability> availabilities = AvailabilitySweep.sweep(practitionerId, CalendarData.timeSlots(practitionerId, DAYS), appointments);
+            List<Object[]> availabilityRows = new ArrayList<>(availabilities.size());
+            for (Availability availability : availabilities) {
+                availabilityRows.add(new Object[]{practitionerId, Timestamp.valueOf(availability.getStartDate()), Timestamp.valueOf(availability.getEndDate())});
+            }
+            List<Object[]> appointmentRows = new ArrayList<>(appointments.size());
+            for (Appointment appointment : appointments) {
+                appointmentRows.add(new Object[]{practitionerId, appointment.getPatientId(),
+                        Timestamp.valueOf(appointment.getStartDate()), Timestamp.valueOf(appointment.getEndDate())});
+            }
+            jdbcTemplate.batchUpdate("insert into availability (id, practitioner_id, start_date, end_date)"
+                    + " values (next value for availability_seq, ?, ?, ?)", availabilityRows);
+            jdbcTemplate.batchUpdate("insert into appointment (id, practitioner_id, patient_id, start_date, end_date)"
+                    + " values (next value for hibernate_sequence, ?, ?, ?, ?)", appointmentRows);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Availability> availabilitiesOfAWeek() {
+        int practitionerId = randomPractitioner();
+        return availabilityRepository.findByPractitionerIdAndStartDateGreaterThanEqualAndStartDateLessThan(
+                practitionerId, CalendarData.FIRST_DAY.plusDays(21), CalendarData.FIRST_DAY.plusDays(28));
+    }
+
+    @Benchmark
+    public List<Availability> availabilityPage() {
+        CalendarWindow window = CalendarWindow.builder().from(CalendarData.FIRST_DAY.plusDays(21)).size(50).build();
+        return availabilityRepository.findPage(randomPractitioner(), window.seekStartDate(), window.seekId(), window.upperBound(), window.pageable());
+    }
+
+    @Benchmark
+    public List<Appointment> overlappingAppointments() {
+        return appointmentRepository.findByPractitionerIdAndStartDateLessThanAndEndDateGreaterThan(
+                randomPractitioner(), CalendarData.FIRST_DAY.plusDays(22), CalendarData.FIRST_DAY.plusDays(21));
+    }
+
+    private int randomPractitioner() {
+        return FIRST_PRACTITIONER_ID + ThreadLocalRandom.current().nextInt(practitioners);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.pro.benchmark;
+
+import com.example.pro.entity.Availability;
+import com.example.pro.scheduling.AvailabilitySweep;
+import com.example.pro.scheduling.CalendarWireFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of availability lists with the same ObjectMapper configuration as the REST layer, against the compact
+ * calendar encoding served to clients that accept it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvailabilitySerializationBenchmark {
+
+    @Param({"7", "30", "365"})
+    private int days;
+
+    private ObjectMapper objectMapper;
+    private List<Availability> availabilities;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        availabilities = AvailabilitySweep.sweep(1, CalendarData.timeSlots(1, days), CalendarData.appointments(1, days, 0.3, true, 42));
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(availabilities);
+    }
+
+    @Benchmark
+    public byte[] serializeCompact() {
+        return CalendarWireFormat.encode(availabilities);
+    }
+}
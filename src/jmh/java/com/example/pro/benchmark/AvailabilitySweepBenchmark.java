@@ -0,0 +1,63 @@
+package com.example.pro.benchmark;
+
+import com.example.pro.entity.Appointment;
+import com.example.pro.entity.Availability;
+import com.example.pro.entity.TimeSlot;
+import com.example.pro.scheduling.AvailabilitySweep;
+import com.example.pro.scheduling.CalendarBitmap;
+import com.example.pro.scheduling.FreeSlots;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Availability generation of one practitioner for growing calendars, appointment densities and odd-length appointments,
+ * with the interval sweep and with the minute bitmap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvailabilitySweepBenchmark {
+
+    @Param({"5", "60", "750"})
+    private int days;
+
+    @Param({"0", "0.3", "0.8"})
+    private double density;
+
+    @Param({"false", "true"})
+    private boolean oddLengths;
+
+    private List<TimeSlot> timeSlots;
+    private List<Appointment> appointments;
+
+    @Setup
+    public void setUp() {
+        timeSlots = CalendarData.timeSlots(1, days);
+        appointments = CalendarData.appointments(1, days, density, oddLengths, 42);
+    }
+
+    @Benchmark
+    public List<Availability> sweep() {
+        return AvailabilitySweep.sweep(1, timeSlots, appointments);
+    }
+
+    @Benchmark
+    public FreeSlots bitmap() {
+        return CalendarBitmap.of(timeSlots, appointments).freeSlots(1, 15);
+    }
+}
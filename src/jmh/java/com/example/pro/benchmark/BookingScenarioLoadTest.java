@@ -0,0 +1,221 @@
+package com.example.pro.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop load test of the patient journey against a running server, typically started with a synthetic data set
+ * ({@code pro.synthetic.practitioners}). Each client repeatedly browses the week of a random practitioner, searches the
+ * first availabilities of a random speciality, or books one of the availabilities it was last shown, in the given
+ * proportions. Throughput and latency percentiles are printed per operation and concurrency level; a booking refused
+ * because the slot was taken in the meantime is counted as a conflict, not an error.
+ * <p>
+ * Arguments: base URL, comma-separated concurrency levels, seconds per level, browse:search:book weights and days
+ * of calendar read per browse or search.
+ */
+public final class BookingScenarioLoadTest {
+
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int MAX_PATIENTS = 10_000;
+
+    private enum Operation { BROWSE, SEARCH, BOOK }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private BookingScenarioLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int[] levels = Arrays.stream((args.length > 1 ? args[1] : "8,32,128").split(",")).mapToInt(Integer::parseInt).toArray();
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 20);
+        int[] weights = Arrays.stream((args.length > 3 ? args[3] : "70:20:10").split(":")).mapToInt(Integer::parseInt).toArray();
+        int days = args.length > 4 ? Integer.parseInt(args[4]) : 7;
+
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newCachedThreadPool()).build();
+        Population population = Population.load(client, baseUrl);
+        System.out.printf("%d practitioners, %d specialities, %d patients%n", population.practitionerIds.length,
+                population.specialities.length, population.patientIds.length);
+
+        System.out.printf("%8s %8s %12s %10s %10s %10s %10s %8s %10s%n",
+                "clients", "op", "requests/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "errors", "conflicts");
+        for (int clients : levels) {
+            Scenario result = runLevel(client, baseUrl, population, clients, duration, weights, days);
+            for (Operation operation : Operation.values()) {
+                Latencies latencies = result.latencies[operation.ordinal()];
+                System.out.printf("%8d %8s %12.1f %10.2f %10.2f %10.2f %10.2f %8d %10s%n", clients, operation.name().toLowerCase(),
+                        latencies.throughput(duration), latencies.percentile(0.50), latencies.percentile(0.95),
+                        latencies.percentile(0.99), latencies.percentile(1), latencies.errors(),
+                        operation == Operation.BOOK ? String.valueOf(result.conflicts) : "");
+            }
+        }
+        System.exit(0);
+    }
+
+    private static Scenario runLevel(HttpClient client, String baseUrl, Population population, int clients, Duration duration,
+                                    int[] weights, int days) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Scenario>> futures = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            long seed = i;
+            futures.add(executor.submit(() -> {
+                Scenario scenario = new Scenario(client, baseUrl, population, new Random(seed), days);
+                while (System.nanoTime() < deadline) {
+                    scenario.next(weights);
+                }
+                return scenario;
+            }));
+        }
+        Scenario level = new Scenario(client, baseUrl, population, new Random(), days);
+        for (Future<Scenario> future : futures) {
+            level.merge(future.get());
+        }
+        executor.shutdown();
+        return level;
+    }
+
+    /**
+     * One client of the closed loop, remembering the availabilities it was last shown so that it books real slots.
+     */
+    private static final class Scenario {
+        private final HttpClient client;
+        private final String baseUrl;
+        private final Population population;
+        private final Random random;
+        private final int days;
+        private final Latencies[] latencies = {new Latencies(), new Latencies(), new Latencies()};
+        private long conflicts;
+        private List<JsonNode> shown = new ArrayList<>();
+
+        private Scenario(HttpClient client, String baseUrl, Population population, Random random, int days) {
+            this.client = client;
+            this.baseUrl = baseUrl;
+            this.population = population;
+            this.random = random;
+            this.days = days;
+        }
+
+        private void next(int[] weights) {
+            int draw = random.nextInt(weights[0] + weights[1] + weights[2]);
+            Operation operation = draw < weights[0] ? Operation.BROWSE : draw < weights[0] + weights[1] ? Operation.SEARCH : Operation.BOOK;
+            if (operation == Operation.BOOK && shown.isEmpty()) {
+                operation = Operation.BROWSE;
+            }
+            LocalDateTime from = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            String window = "&from=" + from + "&to=" + from.plusDays(days);
+            HttpRequest request;
+            switch (operation) {
+                case BROWSE:
+                    request = get("/availabilities?size=50&practitionerId="
+                            + population.practitionerIds[random.nextInt(population.practitionerIds.length)] + window);
+                    break;
+                case SEARCH:
+                    request = get("/availabilities/search?limit=10&speciality="
+                            + URLEncoder.encode(population.specialities[random.nextInt(population.specialities.length)], StandardCharsets.UTF_8) + window);
+                    break;
+                default:
+                    JsonNode availability = shown.remove(random.nextInt(shown.size()));
+                    ObjectNode appointment = MAPPER.createObjectNode()
+                            .put("practitionerId", availability.get("practitionerId").asInt())
+                            .put("patientId", population.patientIds[random.nextInt(population.patientIds.length)])
+                            .put("startDate", availability.get("startDate").asText())
+                            .put("endDate", availability.get("endDate").asText());
+                    request = HttpRequest.newBuilder(URI.create(baseUrl + "/appointments")).timeout(Duration.ofSeconds(30))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(appointment.toString())).build();
+            }
+
+            long start = System.nanoTime();
+            try {
+                HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                latencies[operation.ordinal()].add(System.nanoTime() - start);
+                if (response.statusCode() == 409 && operation == Operation.BOOK) {
+                    conflicts++;
+                } else if (response.statusCode() >= 400) {
+                    latencies[operation.ordinal()].error();
+                } else if (operation != Operation.BOOK) {
+                    shown = new ArrayList<>();
+                    MAPPER.readTree(response.body()).forEach(shown::add);
+                }
+            } catch (Exception e) {
+                latencies[operation.ordinal()].add(System.nanoTime() - start);
+                latencies[operation.ordinal()].error();
+            }
+        }
+
+        private HttpRequest get(String path) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).build();
+        }
+
+        private void merge(Scenario other) {
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i].merge(other.latencies[i]);
+            }
+            conflicts += other.conflicts;
+        }
+    }
+
+    /**
+     * Practitioners, specialities and a sample of patients of the server, read once from the NDJSON exports.
+     */
+    private static final class Population {
+        private int[] practitionerIds;
+        private String[] specialities;
+        private int[] patientIds;
+
+        private static Population load(HttpClient client, String baseUrl) throws Exception {
+            Population population = new Population();
+            List<Integer> practitionerIds = new ArrayList<>();
+            List<String> specialities = new ArrayList<>();
+            for (JsonNode practitioner : readNdjson(client, baseUrl + "/practitioners", Integer.MAX_VALUE)) {
+                practitionerIds.add(practitioner.get("id").asInt());
+                String speciality = practitioner.path("speciality").asText(null);
+                if (speciality != null && !specialities.contains(speciality)) {
+                    specialities.add(speciality);
+                }
+            }
+            population.practitionerIds = practitionerIds.stream().mapToInt(Integer::intValue).toArray();
+            population.specialities = specialities.toArray(new String[0]);
+            population.patientIds = readNdjson(client, baseUrl + "/patients", MAX_PATIENTS).stream()
+                    .mapToInt(patient -> patient.get("id").asInt()).toArray();
+            return population;
+        }
+
+        private static List<JsonNode> readNdjson(HttpClient client, String url, int limit) throws Exception {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url)).header("Accept", NDJSON).build();
+            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            List<JsonNode> rows = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                String line;
+                while (rows.size() < limit && (line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        rows.add(MAPPER.readTree(line));
+                    }
+                }
+            }
+            return rows;
+        }
+    }
+}
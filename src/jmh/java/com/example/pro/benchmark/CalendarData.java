@@ -0,0 +1,47 @@
+package com.example.pro.benchmark;
+
+import com.example.pro.entity.Appointment;
+import com.example.pro.entity.TimeSlot;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic calendars for the benchmarks: one 9h-17h time slot per working day and appointments booked on a share
+ * of the quarter hours, optionally with odd lengths that force the sweep to realign its grid.
+ */
+final class CalendarData {
+    static final LocalDateTime FIRST_DAY = LocalDateTime.of(2021, 1, 4, 9, 0);
+    private static final int QUARTERS_PER_DAY = 32;
+
+    private CalendarData() {
+    }
+
+    static List<TimeSlot> timeSlots(Integer practitionerId, int days) {
+        List<TimeSlot> timeSlots = new ArrayList<>(days);
+        for (int day = 0; day < days; day++) {
+            LocalDateTime start = FIRST_DAY.plusDays(day);
+            timeSlots.add(TimeSlot.builder().practitionerId(practitionerId).startDate(start).endDate(start.plusHours(8)).build());
+        }
+        return timeSlots;
+    }
+
+    static List<Appointment> appointments(Integer practitionerId, int days, double density, boolean oddLengths, long seed) {
+        Random random = new Random(seed);
+        List<Appointment> appointments = new ArrayList<>();
+        for (int day = 0; day < days; day++) {
+            for (int quarter = 0; quarter < QUARTERS_PER_DAY; quarter++) {
+                if (random.nextDouble() >= density) {
+                    continue;
+                }
+                LocalDateTime start = FIRST_DAY.plusDays(day).plusMinutes(15L * quarter);
+                int length = oddLengths ? 10 + random.nextInt(4) * 5 : 15;
+                appointments.add(Appointment.builder().practitionerId(practitionerId).patientId(random.nextInt(100_000))
+                        .startDate(start).endDate(start.plusMinutes(length)).build());
+            }
+        }
+        return appointments;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.pro.benchmark;
+
+import com.example.pro.entity.Appointment;
+import com.example.pro.entity.TimeSlot;
+import com.example.pro.scheduling.CalendarBitmap;
+import com.example.pro.scheduling.FreeSlots;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Free windows of a week-long calendar for several consultation lengths, computed from time slots and appointments
+ * on request, bitmap construction included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FreeWindowsBenchmark {
+
+    @Param({"15", "30", "45"})
+    private int duration;
+
+    @Param({"5", "15"})
+    private int grid;
+
+    @Param({"0.3", "0.8"})
+    private double density;
+
+    private List<TimeSlot> timeSlots;
+    private List<Appointment> appointments;
+
+    @Setup
+    public void setUp() {
+        timeSlots = CalendarData.timeSlots(1, 7);
+        appointments = CalendarData.appointments(1, 7, density, true, 42);
+    }
+
+    @Benchmark
+    public FreeSlots freeWindows() {
+        return CalendarBitmap.of(timeSlots, appointments)
+                .freeWindows(1, duration, grid, CalendarData.FIRST_DAY, CalendarData.FIRST_DAY.plusDays(7));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.pro.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop HTTP load test against a running server: for each concurrency level, that many clients send requests
+ * back to back for a fixed duration, then throughput and latency percentiles are printed. The last line gives the
+ * highest level whose p99 stays under the target, which is the figure to compare between two server configurations,
+ * for instance {@code pro.web.execution=platform} and {@code pro.web.execution=virtual}.
+ * <p>
+ * Arguments: base URL, comma-separated paths requested in turn, comma-separated concurrency levels, seconds per level
+ * and p99 target in milliseconds.
+ */
+public final class HttpLoadTest {
+
+    private HttpLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        String[] paths = (args.length > 1 ? args[1] : "/availabilities?practitionerId=6,/practitioners").split(",");
+        int[] levels = Arrays.stream((args.length > 2 ? args[2] : "8,32,128,512").split(",")).mapToInt(Integer::parseInt).toArray();
+        Duration duration = Duration.ofSeconds(args.length > 3 ? Long.parseLong(args[3]) : 20);
+        double p99Target = args.length > 4 ? Double.parseDouble(args[4]) : 100;
+
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newCachedThreadPool()).build();
+        int sustained = 0;
+        System.out.printf("%8s %12s %10s %10s %10s %8s%n", "clients", "requests/s", "p50 ms", "p99 ms", "max ms", "errors");
+        for (int clients : levels) {
+            Latencies result = runLevel(client, baseUrl, paths, clients, duration);
+            System.out.printf("%8d %12.1f %10.2f %10.2f %10.2f %8d%n", clients, result.throughput(duration),
+                    result.percentile(0.50), result.percentile(0.99), result.percentile(1), result.errors());
+            if (result.percentile(0.99) <= p99Target && result.errors() == 0) {
+                sustained = clients;
+            }
+        }
+        System.out.printf("highest concurrency with p99 <= %.0f ms and no error: %d clients%n", p99Target, sustained);
+        System.exit(0);
+    }
+
+    private static Latencies runLevel(HttpClient client, String baseUrl, String[] paths, int clients, Duration duration) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Latencies>> futures = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            int offset = i;
+            futures.add(executor.submit(() -> {
+                Latencies result = new Latencies();
+                for (int request = offset; System.nanoTime() < deadline; request++) {
+                    HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(baseUrl + paths[request % paths.length]))
+                            .timeout(Duration.ofSeconds(30)).build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(httpRequest, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 400) {
+                            result.error();
+                        }
+                    } catch (Exception e) {
+                        result.error();
+                    }
+                    result.add(System.nanoTime() - start);
+                }
+                return result;
+            }));
+        }
+        Latencies level = new Latencies();
+        for (Future<Latencies> future : futures) {
+            level.merge(future.get());
+        }
+        executor.shutdown();
+        return level;
+    }
+}
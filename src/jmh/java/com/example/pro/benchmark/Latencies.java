@@ -0,0 +1,55 @@
+package com.example.pro.benchmark;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Latencies and error count of a load test run, one instance per client merged at the end of the run.
+ */
+final class Latencies {
+    private long[] values = new long[1024];
+    private int count;
+    private long errors;
+
+    void add(long latencyNanos) {
+        if (count == values.length) {
+            values = Arrays.copyOf(values, count * 2);
+        }
+        values[count++] = latencyNanos;
+    }
+
+    void error() {
+        errors++;
+    }
+
+    void merge(Latencies other) {
+        values = Arrays.copyOf(values, count + other.count);
+        System.arraycopy(other.values, 0, values, count, other.count);
+        count += other.count;
+        Arrays.sort(values, 0, count);
+        errors += other.errors;
+    }
+
+    int count() {
+        return count;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    double throughput(Duration duration) {
+        return count / (duration.toMillis() / 1000d);
+    }
+
+    /**
+     * Percentile in milliseconds, on merged latencies only since they are the sorted ones.
+     */
+    double percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(count - 1, Math.ceil(percentile * count) - 1);
+        return values[Math.max(0, index)] / 1_000_000d;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.pro.configuration;
+
+import com.example.pro.scheduling.CalendarWireFormat;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes availability and appointment lists in the {@link CalendarWireFormat} to the endpoints that declare it among
+ * the types they produce. It is never picked for a wildcard {@code Accept}, so JSON stays the default everywhere.
+ */
+@Component
+public class CalendarMessageConverter extends AbstractHttpMessageConverter<List<?>> {
+
+    private static final MediaType MEDIA_TYPE = MediaType.parseMediaType(CalendarWireFormat.MEDIA_TYPE_VALUE);
+
+    public CalendarMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return mediaType != null && !mediaType.isWildcardType() && super.canWrite(clazz, mediaType);
+    }
+
+    @Override
+    protected List<?> readInternal(Class<? extends List<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Calendar payloads are only written", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(List<?> rows, HttpOutputMessage outputMessage) throws IOException {
+        byte[] body;
+        try {
+            body = CalendarWireFormat.encode(rows);
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotWritableException(e.getMessage(), e);
+        }
+        outputMessage.getHeaders().setContentLength(body.length);
+        outputMessage.getBody().write(body);
+    }
+}
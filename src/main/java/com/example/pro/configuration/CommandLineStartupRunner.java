@@ -2,20 +2,29 @@ package com.example.pro.configuration;
 
 import com.example.pro.entity.Patient;
 import com.example.pro.entity.Practitioner;
+import com.example.pro.entity.ScheduleRule;
 import com.example.pro.entity.TimeSlot;
 import com.example.pro.repository.PatientRepository;
 import com.example.pro.repository.PractitionerRepository;
+import com.example.pro.repository.ScheduleRuleRepository;
 import com.example.pro.repository.TimeSlotRepository;
-import com.example.pro.service.ProAvailabilityService;
+import com.example.pro.service.ProAvailabilityBulkService;
+import com.example.pro.service.ProJournalService;
+import com.example.pro.service.ProSyntheticDataService;
+import com.example.pro.service.SyntheticDataSpec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 
 @Configuration
@@ -29,19 +38,60 @@ public class CommandLineStartupRunner implements CommandLineRunner {
     private PractitionerRepository practitionerRepository;
     @Autowired
     private TimeSlotRepository timeSlotRepository;
+    @Autowired
+    private ScheduleRuleRepository scheduleRuleRepository;
+
+    @Autowired
+    private ProAvailabilityBulkService proAvailabilityBulkService;
 
     @Autowired
-    private ProAvailabilityService proAvailabilityService;
+    private ProSyntheticDataService proSyntheticDataService;
+
+    @Autowired
+    private ProJournalService proJournalService;
 
     @Override
     public void run(String... args) {
+        // a database kept across restarts, or shared by the nodes of a partitioned deployment, is seeded once
+        if (practitionerRepository.count() == 0) {
+            initialiseData();
+        }
+
+        if (!proJournalService.recover()) {
+            proAvailabilityBulkService.regenerateAll();
+            proJournalService.snapshot();
+        }
+
+        //synthetic data set for load tests, see pro.synthetic.* properties
+        SyntheticDataSpec syntheticDataSpec = proSyntheticDataService.getConfiguredSpec();
+        if (syntheticDataSpec.getPractitioners() > 0) {
+            proSyntheticDataService.generate(syntheticDataSpec);
+        }
+    }
+
+    private void initialiseData() {
         //initialise data
+        List<Patient> patients = new ArrayList<>();
+        List<Practitioner> practitioners = new ArrayList<>();
         for (int i = 1; i <= 5; i++) {
-            String speciality ="orthodontist";
+            String speciality = "orthodontist";
+            if (i % 2 == 0) {
+                speciality = "general practitioner";
+            }
+            if (i == 3) {
+                speciality = "dentist";
+            }
             //create patient
-            patientRepository.save(Patient.builder().firstName("patient_" + i).lastName("example").build());
+            patients.add(Patient.builder().firstName("patient_" + i).lastName("example").build());
             //create practitioner
-            Practitioner practitioner = practitionerRepository.save(Practitioner.builder().firstName("practitioner" + i).lastName("example").build());
+            practitioners.add(Practitioner.builder().firstName("practitioner" + i).lastName("example").speciality(speciality).build());
+        }
+        patientRepository.saveAll(patients);
+        practitionerRepository.saveAll(practitioners);
+
+        List<TimeSlot> timeSlotList = new ArrayList<>();
+        for (int i = 1; i <= practitioners.size(); i++) {
+            Practitioner practitioner = practitioners.get(i - 1);
             //create timeSlots for practitioner
             //timeslot from 2021/02/08 at 8H to 2021/02/08 at 12H
             TimeSlot timeSlot1 = TimeSlot.builder().startDate(LocalDateTime.of(2021, 2, 8, 8, 0))
@@ -52,29 +102,31 @@ public class CommandLineStartupRunner implements CommandLineRunner {
             //timeslot from 2021/02/09 at 9H to 2021/02/09 at 17H
             TimeSlot timeSlot3 = TimeSlot.builder().startDate(LocalDateTime.of(2021, 2, 9, 9, 0))
                     .endDate(LocalDateTime.of(2021, 2, 9, 17, 0)).practitionerId(practitioner.getId()).build();
-            List<TimeSlot> timeSlotList = new ArrayList<>(Arrays.asList(timeSlot1, timeSlot2, timeSlot3));
+            timeSlotList.addAll(Arrays.asList(timeSlot1, timeSlot2, timeSlot3));
             if (i % 2 == 0) {
                 //timeslot from 2021/02/10 at 9H to 2021/02/10 at 16H
                 TimeSlot timeSlot4 = TimeSlot.builder().startDate(LocalDateTime.of(2021, 2, 10, 9, 0))
                         .endDate(LocalDateTime.of(2021, 2, 10, 16, 0)).practitionerId(practitioner.getId()).build();
                 timeSlotList.add(timeSlot4);
-                speciality="general practitioner";
             }
             if (i == 3) {
                 //timeslot from 2021/02/11 at 11H to 2021/02/11 at 18H
                 TimeSlot timeSlot5 = TimeSlot.builder().startDate(LocalDateTime.of(2021, 2, 11, 11, 0))
                         .endDate(LocalDateTime.of(2021, 2, 11, 18, 0)).practitionerId(practitioner.getId()).build();
                 timeSlotList.add(timeSlot5);
-                speciality="dentist";
             }
-            practitioner.setSpeciality(speciality);
-            practitioner = practitionerRepository.save(practitioner);
-            timeSlotRepository.saveAll(timeSlotList);
-
-            proAvailabilityService.generateAvailabilities(practitioner.getId());
         }
+        timeSlotRepository.saveAll(timeSlotList);
+
+        //first practitioner also works from monday to friday, 9H to 17H, every week from today
+        ScheduleRule scheduleRule = scheduleRuleRepository.save(ScheduleRule.builder().practitionerId(practitioners.get(0).getId())
+                .daysOfWeek(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY))
+                .startTime(LocalTime.of(9, 0)).endTime(LocalTime.of(17, 0))
+                .validFrom(LocalDate.now()).build());
+
         log.info("------------------created patients---------------- " + patientRepository.findAll());
         log.info("------------------created practitioners---------------- " + practitionerRepository.findAll());
         log.info("------------------created timeSlots---------------- " + timeSlotRepository.findAll());
+        log.info("------------------created scheduleRule---------------- " + scheduleRule);
     }
 }
@@ -0,0 +1,207 @@
+package com.example.pro.configuration;
+
+import com.example.pro.scheduling.PractitionerPartitions;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Forwards the calendar reads and writes of a practitioner owned by another node, see {@link PractitionerPartitions},
+ * to that node and relays its response. Routed requests are those of {@code /availabilities} and
+ * {@code /availabilities/windows} by {@code practitionerId} parameter, {@code /appointments/{practitionerId}}, and
+ * bookings and schedule rules posted to {@code /appointments} and {@code /schedule-rules}, whose body is buffered to
+ * read the practitioner. A regeneration started with {@code POST /availabilities/regeneration} is also started on every
+ * other node, each regenerating the practitioners it owns. Other requests, such as searches across practitioners, are
+ * served by any node from the shared database, writes among them evicting the owners' caches.
+ * <p>
+ * A forwarded request is marked and always served where it lands, so that nodes disagreeing on the ring for a while
+ * never bounce it.
+ */
+@Component
+public class PartitionRoutingFilter extends OncePerRequestFilter {
+
+    public static final String FORWARDED_BY_HEADER = "X-Pro-Forwarded-By";
+    public static final String NODE_HEADER = "X-Pro-Node";
+
+    private static final Duration FORWARD_TIMEOUT = Duration.ofSeconds(30);
+    private static final List<String> FORWARDED_REQUEST_HEADERS = List.of(HttpHeaders.ACCEPT, HttpHeaders.CONTENT_TYPE, HttpHeaders.IF_NONE_MATCH);
+    private static final List<String> RELAYED_RESPONSE_HEADERS = List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.ETAG, HttpHeaders.CACHE_CONTROL, HttpHeaders.VARY);
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    @Autowired
+    private PractitionerPartitions practitionerPartitions;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !practitionerPartitions.isEnabled() || request.getHeader(FORWARDED_BY_HEADER) != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        byte[] body = null;
+        Integer practitionerId = null;
+        if ("GET".equals(request.getMethod()) && (path.equals("/availabilities") || path.equals("/availabilities/windows"))) {
+            practitionerId = parse(request.getParameter("practitionerId"));
+        } else if ("GET".equals(request.getMethod()) && path.startsWith("/appointments/")) {
+            practitionerId = parse(path.substring("/appointments/".length()));
+        } else if ("POST".equals(request.getMethod()) && path.equals("/availabilities/regeneration")) {
+            broadcast(path, request);
+        } else if ("POST".equals(request.getMethod()) && (path.equals("/appointments") || path.equals("/schedule-rules"))) {
+            body = request.getInputStream().readAllBytes();
+            practitionerId = practitionerIdOf(body);
+            request = new BufferedRequest(request, body);
+        }
+
+        if (practitionerId == null || practitionerPartitions.isLocal(practitionerId)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        forward(practitionerPartitions.ownerOf(practitionerId), path, request, body, response);
+    }
+
+    private void forward(String owner, String path, HttpServletRequest request, byte[] body, HttpServletResponse response) throws IOException {
+        String query = request.getQueryString();
+        HttpRequest.Builder forwarded = HttpRequest.newBuilder(URI.create(owner + path + (query == null ? "" : "?" + query)))
+                .timeout(FORWARD_TIMEOUT)
+                .header(FORWARDED_BY_HEADER, practitionerPartitions.getSelf())
+                .method(request.getMethod(), body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body));
+        for (String header : FORWARDED_REQUEST_HEADERS) {
+            String value = request.getHeader(header);
+            if (value != null) {
+                forwarded.header(header, value);
+            }
+        }
+        HttpResponse<byte[]> relayed;
+        try {
+            relayed = httpClient.send(forwarded.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            response.sendError(HttpStatus.BAD_GATEWAY.value(), "Node " + owner + " owning the practitioner is unreachable");
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+        response.setStatus(relayed.statusCode());
+        for (String header : RELAYED_RESPONSE_HEADERS) {
+            relayed.headers().firstValue(header).ifPresent(value -> response.setHeader(header, value));
+        }
+        response.setHeader(NODE_HEADER, owner);
+        response.getOutputStream().write(relayed.body());
+    }
+
+    private void broadcast(String path, HttpServletRequest request) {
+        for (String node : practitionerPartitions.getRing().getNodes()) {
+            if (node.equals(practitionerPartitions.getSelf())) {
+                continue;
+            }
+            HttpRequest forwarded = HttpRequest.newBuilder(URI.create(node + path))
+                    .timeout(FORWARD_TIMEOUT)
+                    .header(FORWARDED_BY_HEADER, practitionerPartitions.getSelf())
+                    .method(request.getMethod(), HttpRequest.BodyPublishers.noBody())
+                    .build();
+            try {
+                httpClient.send(forwarded, HttpResponse.BodyHandlers.discarding());
+            } catch (IOException e) {
+                // a node down regenerates the practitioners it owns when it starts
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Integer practitionerIdOf(byte[] body) {
+        try {
+            JsonNode practitionerId = objectMapper.readTree(body).path("practitionerId");
+            return practitionerId.canConvertToInt() ? practitionerId.asInt() : null;
+        } catch (IOException e) {
+            // left to the controller to reject
+            return null;
+        }
+    }
+
+    private static Integer parse(String value) {
+        try {
+            return value == null ? null : Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Serves a body already read again to the controller.
+     */
+    private static final class BufferedRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private BufferedRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
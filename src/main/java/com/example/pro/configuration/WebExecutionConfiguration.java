@@ -0,0 +1,50 @@
+package com.example.pro.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Selects how requests are executed with {@code pro.web.execution}.
+ * <p>
+ * {@code platform} (the default) keeps the Tomcat thread-per-request pool. {@code virtual} hands every request to its
+ * own virtual thread, so requests blocked on JPA no longer hold a scarce pool thread and concurrency is only bounded
+ * by the connection pool. Virtual threads need a Java 21+ runtime: the executor is looked up reflectively since the
+ * sources target Java 11, and the Tomcat pool is kept when the runtime does not provide it.
+ */
+@Configuration
+public class WebExecutionConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(WebExecutionConfiguration.class);
+
+    @Bean
+    @ConditionalOnProperty(name = "pro.web.execution", havingValue = "virtual")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        Optional<ExecutorService> executor = newVirtualThreadPerTaskExecutor();
+        if (executor.isEmpty()) {
+            log.warn("pro.web.execution=virtual needs a Java 21+ runtime, running {} keeps the Tomcat thread pool",
+                    System.getProperty("java.version"));
+            return protocolHandler -> {
+            };
+        }
+        log.info("Handling requests on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(executor.get());
+    }
+
+    static Optional<ExecutorService> newVirtualThreadPerTaskExecutor() {
+        try {
+            return Optional.of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            // missing before Java 19, preview API of Java 19 and 20 without --enable-preview
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.pro.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Streams entities to the response as they are read, either as one chunked JSON array or as NDJSON, one document per
+ * line. Bytes leave as soon as the generator buffer fills, and memory does not depend on the number of entities.
+ */
+final class JsonStreaming {
+
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private JsonStreaming() {
+    }
+
+    static <T> ResponseEntity<StreamingResponseBody> jsonArray(ObjectMapper objectMapper, Consumer<Consumer<T>> source) {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.writeStartArray();
+                source.accept(entity -> write(generator, entity));
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    static <T> ResponseEntity<StreamingResponseBody> ndjson(ObjectMapper objectMapper, Consumer<Consumer<T>> source) {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+                source.accept(entity -> write(generator, entity));
+                // the separator goes between documents, the last line is ended here unless there was none
+                if (generator.getOutputContext().getEntryCount() > 0) {
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE)).body(body);
+    }
+
+    private static void write(JsonGenerator generator, Object entity) {
+        try {
+            generator.writeObject(entity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
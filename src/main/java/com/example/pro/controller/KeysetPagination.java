@@ -0,0 +1,80 @@
+package com.example.pro.controller;
+
+import com.example.pro.scheduling.CalendarWireFormat;
+import com.example.pro.service.CalendarWindow;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Builds keyset-paginated responses: the body is the page itself and, when the page is full, a {@code Link} header
+ * points to the next page through the (afterStartDate, afterId) cursor of its last row.
+ * <p>
+ * Pages of a calendar are revalidated on every use: {@link #notModified} answers 304 before anything is read when the
+ * client already holds the current version of the calendar. The ETag and the response vary with the format negotiated
+ * from {@code Accept}, JSON or the compact calendar encoding.
+ */
+final class KeysetPagination {
+
+    private static final DateTimeFormatter CURSOR_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+    private static final MediaType CALENDAR_FORMAT = MediaType.parseMediaType(CalendarWireFormat.MEDIA_TYPE_VALUE);
+
+    private KeysetPagination() {
+    }
+
+    static <T> ResponseEntity<List<T>> page(List<T> rows, CalendarWindow window,
+                                            Function<T, LocalDateTime> startDate, Function<T, Integer> id) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT);
+        if (!rows.isEmpty() && rows.size() >= window.pageSize()) {
+            T last = rows.get(rows.size() - 1);
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("afterStartDate", CURSOR_FORMAT.format(startDate.apply(last)))
+                    .replaceQueryParam("afterId", id.apply(last))
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(rows);
+    }
+
+    /**
+     * Sets the strong ETag of the calendar version on the response and tells whether the client copy is current.
+     */
+    static boolean notModified(WebRequest request, String calendarVersion) {
+        return request.checkNotModified("\"" + calendarVersion + (acceptsCalendarFormat(request) ? "-cal" : "") + "\"");
+    }
+
+    /**
+     * Whether content negotiation picks the calendar encoding: it must rank before JSON, which a wildcard stands for.
+     */
+    private static boolean acceptsCalendarFormat(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return false;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+            if (mediaType.isCompatibleWith(CALENDAR_FORMAT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
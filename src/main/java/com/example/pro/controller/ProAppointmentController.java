@@ -1,12 +1,23 @@
 package com.example.pro.controller;
 
 import com.example.pro.entity.Appointment;
+import com.example.pro.exception.InvalidAppointmentException;
+import com.example.pro.exception.SlotUnavailableException;
+import com.example.pro.scheduling.CalendarWireFormat;
+import com.example.pro.service.CalendarWindow;
 import com.example.pro.service.ProAppointmentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @CrossOrigin
@@ -16,15 +27,42 @@ public class ProAppointmentController {
     @Autowired
     private ProAppointmentService proAppointmentService;
 
-    @ApiOperation(value = "Get appointments by practitionerId")
-    @GetMapping("/{practitionerId}")
-    public List<Appointment> getAppointmentsByPractitioner(@PathVariable final Integer practitionerId) {
-        return proAppointmentService.findByPractitionerId(practitionerId);
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @ApiOperation(value = "Get appointments by practitionerId, starting in the [from, to) window, one keyset page at a time, 304 when the If-None-Match calendar version is current")
+    @GetMapping(value = "/{practitionerId}", produces = {MediaType.APPLICATION_JSON_VALUE, CalendarWireFormat.MEDIA_TYPE_VALUE})
+    public ResponseEntity<List<Appointment>> getAppointmentsByPractitioner(@PathVariable final Integer practitionerId,
+                                                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime from,
+                                                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime to,
+                                                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime afterStartDate,
+                                                                           @RequestParam(required = false) final Integer afterId,
+                                                                           @RequestParam(required = false) final Integer size,
+                                                                           final WebRequest request) {
+        if (KeysetPagination.notModified(request, proAppointmentService.getCalendarVersion(practitionerId))) {
+            return null;
+        }
+        CalendarWindow window = CalendarWindow.builder().from(from).to(to).afterStartDate(afterStartDate).afterId(afterId).size(size).build();
+        return KeysetPagination.page(proAppointmentService.findByPractitionerId(practitionerId, window), window,
+                Appointment::getStartDate, Appointment::getId);
+    }
+
+    @ApiOperation(value = "Book an appointment on the availabilities of a practitioner")
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public Appointment bookAppointment(@RequestBody final Appointment appointment) throws InvalidAppointmentException, SlotUnavailableException {
+        return proAppointmentService.book(appointment);
     }
 
-    @ApiOperation(value = "Get all appointments")
+    @ApiOperation(value = "Get all appointments, streamed as a chunked JSON array", response = Appointment.class, responseContainer = "List")
     @GetMapping
-    public List<Appointment> getAppointments() {
-        return proAppointmentService.findAll();
+    public ResponseEntity<StreamingResponseBody> getAppointments() {
+        return JsonStreaming.jsonArray(objectMapper, proAppointmentService::forEach);
+    }
+
+    @ApiOperation(value = "Get all appointments, streamed as NDJSON with one appointment per line", response = Appointment.class)
+    @GetMapping(produces = JsonStreaming.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getAppointmentsAsNdjson() {
+        return JsonStreaming.ndjson(objectMapper, proAppointmentService::forEach);
     }
 }
@@ -1,24 +1,100 @@
 package com.example.pro.controller;
 
 import com.example.pro.entity.Availability;
+import com.example.pro.scheduling.CalendarWireFormat;
+import com.example.pro.scheduling.AvailabilityCacheStats;
+import com.example.pro.service.AvailabilityGenerationProgress;
+import com.example.pro.service.CalendarWindow;
+import com.example.pro.service.ProAvailabilityBulkService;
 import com.example.pro.service.ProAvailabilityService;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @CrossOrigin
 @RestController
 @RequestMapping(value = "/availabilities", produces = MediaType.APPLICATION_JSON_VALUE)
 public class ProAvailabilityController {
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_WINDOW_MINUTES = 24 * 60;
+    private static final int MAX_WINDOW_DAYS = 31;
+
     @Autowired
     private ProAvailabilityService proAvailabilityService;
 
-    @ApiOperation(value = "Get availabilities by practitionerId")
-    @GetMapping
-    public List<Availability> getAvailabilities(@RequestParam final Integer practitionerId) {
-        return proAvailabilityService.findByPractitionerId(practitionerId);
+    @Autowired
+    private ProAvailabilityBulkService proAvailabilityBulkService;
+
+    @ApiOperation(value = "Get availabilities by practitionerId, starting in the [from, to) window, one keyset page at a time, 304 when the If-None-Match calendar version is current")
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, CalendarWireFormat.MEDIA_TYPE_VALUE})
+    public ResponseEntity<List<Availability>> getAvailabilities(@RequestParam final Integer practitionerId,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime from,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime to,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime afterStartDate,
+                                                                @RequestParam(required = false) final Integer afterId,
+                                                                @RequestParam(required = false) final Integer size,
+                                                                final WebRequest request) {
+        if (KeysetPagination.notModified(request, proAvailabilityService.getCalendarVersion(practitionerId))) {
+            return null;
+        }
+        CalendarWindow window = CalendarWindow.builder().from(from).to(to).afterStartDate(afterStartDate).afterId(afterId).size(size).build();
+        return KeysetPagination.page(proAvailabilityService.findByPractitionerId(practitionerId, window), window,
+                Availability::getStartDate, Availability::getId);
+    }
+
+    @ApiOperation(value = "Get the earliest availabilities of all the practitioners of a speciality, in the [from, to) window")
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, CalendarWireFormat.MEDIA_TYPE_VALUE})
+    public List<Availability> searchFirstAvailable(@RequestParam final String speciality,
+                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime from,
+                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime to,
+                                                   @RequestParam(defaultValue = "10") final int limit) {
+        LocalDateTime windowStart = from == null ? LocalDateTime.now() : from;
+        LocalDateTime windowEnd = to == null ? windowStart.plusWeeks(1) : to;
+        return proAvailabilityService.findFirstAvailable(speciality, windowStart, windowEnd, Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS)));
+    }
+
+    @ApiOperation(value = "Get the free windows of a given duration starting on a grid of the clock in the [from, to) window,"
+            + " computed on request rather than stored")
+    @GetMapping(value = "/windows", produces = {MediaType.APPLICATION_JSON_VALUE, CalendarWireFormat.MEDIA_TYPE_VALUE})
+    public List<Availability> getFreeWindows(@RequestParam final Integer practitionerId,
+                                             @RequestParam(defaultValue = "15") final int duration,
+                                             @RequestParam(defaultValue = "15") final int grid,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime from,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime to) {
+        LocalDateTime windowStart = from == null ? LocalDateTime.now() : from;
+        LocalDateTime windowEnd = to == null ? windowStart.plusWeeks(1) : to;
+        if (windowEnd.isAfter(windowStart.plusDays(MAX_WINDOW_DAYS))) {
+            windowEnd = windowStart.plusDays(MAX_WINDOW_DAYS);
+        }
+        return proAvailabilityService.findFreeWindows(practitionerId, windowStart, windowEnd,
+                Math.max(1, Math.min(duration, MAX_WINDOW_MINUTES)), Math.max(1, Math.min(grid, MAX_WINDOW_MINUTES)));
+    }
+
+    @ApiOperation(value = "Get the hit/miss statistics of the availability cache")
+    @GetMapping("/cache")
+    public AvailabilityCacheStats getCacheStats() {
+        return proAvailabilityService.getCacheStats();
+    }
+
+    @ApiOperation(value = "Regenerate the availabilities of all practitioners in the background")
+    @PostMapping("/regeneration")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public AvailabilityGenerationProgress startRegeneration() {
+        return proAvailabilityBulkService.startRegeneration();
+    }
+
+    @ApiOperation(value = "Get the progress of the last availability regeneration")
+    @GetMapping("/regeneration")
+    public ResponseEntity<AvailabilityGenerationProgress> getRegeneration() {
+        AvailabilityGenerationProgress progress = proAvailabilityBulkService.getProgress();
+        return progress == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(progress);
     }
 }
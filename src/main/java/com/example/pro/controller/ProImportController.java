@@ -0,0 +1,40 @@
+package com.example.pro.controller;
+
+import com.example.pro.exception.InvalidImportException;
+import com.example.pro.service.ImportReport;
+import com.example.pro.service.ImportType;
+import com.example.pro.service.ProImportService;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@CrossOrigin
+@RestController
+@RequestMapping(value = "/imports", produces = MediaType.APPLICATION_JSON_VALUE)
+public class ProImportController {
+
+    static final String TEXT_CSV_VALUE = "text/csv";
+
+    @Autowired
+    private ProImportService proImportService;
+
+    @ApiOperation(value = "Import practitioners, patients, time-slots or appointments from a CSV or NDJSON body streamed in,"
+            + " then regenerate the availabilities of the practitioners they touch")
+    @PostMapping(value = "/{type}", consumes = {TEXT_CSV_VALUE, JsonStreaming.APPLICATION_NDJSON_VALUE})
+    public ImportReport importRows(@PathVariable final String type,
+                                   @RequestHeader(HttpHeaders.CONTENT_TYPE) final MediaType contentType,
+                                   final InputStream body) throws IOException, InvalidImportException {
+        ImportType importType = ImportType.fromPath(type);
+        if (importType == null) {
+            throw new InvalidImportException("Unknown import type " + type + ", expected practitioners, patients, time-slots or appointments");
+        }
+        ProImportService.Format format = MediaType.parseMediaType(TEXT_CSV_VALUE).includes(contentType)
+                ? ProImportService.Format.CSV : ProImportService.Format.NDJSON;
+        return proImportService.importRows(importType, format, body);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.pro.controller;
+
+import com.example.pro.service.AvailabilityGenerationProgress;
+import com.example.pro.service.PartitionStatus;
+import com.example.pro.service.ProAvailabilityBulkService;
+import com.example.pro.service.ProPartitionService;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@CrossOrigin
+@RestController
+@RequestMapping(value = "/partitions", produces = MediaType.APPLICATION_JSON_VALUE)
+public class ProPartitionController {
+    @Autowired
+    private ProPartitionService proPartitionService;
+
+    @Autowired
+    private ProAvailabilityBulkService proAvailabilityBulkService;
+
+    @ApiOperation(value = "Get the nodes of the partitioning ring and the practitioners owned by this node")
+    @GetMapping
+    public PartitionStatus getStatus() {
+        return proPartitionService.getStatus();
+    }
+
+    @ApiOperation(value = "Add a node, by base URL, to the partitioning ring of this node")
+    @PostMapping("/nodes")
+    public PartitionStatus join(@RequestParam final String url) {
+        return proPartitionService.join(url);
+    }
+
+    @ApiOperation(value = "Remove a node, by base URL, from the partitioning ring of this node")
+    @DeleteMapping("/nodes")
+    public PartitionStatus leave(@RequestParam final String url) {
+        return proPartitionService.leave(url);
+    }
+
+    @ApiOperation(value = "Drop the cached calendars of practitioners written by another node")
+    @PostMapping(value = "/evictions", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void evict(@RequestBody final List<Integer> practitionerIds) {
+        proPartitionService.evict(practitionerIds);
+    }
+
+    @ApiOperation(value = "Regenerate on this node the availabilities of practitioners handed over by another node")
+    @PostMapping(value = "/regenerations", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public AvailabilityGenerationProgress regenerate(@RequestBody final List<Integer> practitionerIds) {
+        return proAvailabilityBulkService.regenerateHere(practitionerIds);
+    }
+}
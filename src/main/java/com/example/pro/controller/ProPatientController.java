@@ -2,13 +2,14 @@ package com.example.pro.controller;
 
 import com.example.pro.entity.Patient;
 import com.example.pro.service.ProPatientService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.web.bind.annotation.CrossOrigin;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -16,12 +17,38 @@ import java.util.List;
 @RestController
 @RequestMapping(value = "/patients", produces = MediaType.APPLICATION_JSON_VALUE)
 public class ProPatientController {
+    private static final int MAX_SEARCH_RESULTS = 100;
+
     @Autowired
     private ProPatientService proPatientService;
 
-    @ApiOperation(value = "Get patients")
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @ApiOperation(value = "Get patients, streamed as a chunked JSON array", response = Patient.class, responseContainer = "List")
     @GetMapping
-    public List<Patient> getPatients() {
-        return proPatientService.findAll();
+    public ResponseEntity<StreamingResponseBody> getPatients() {
+        return JsonStreaming.jsonArray(objectMapper, proPatientService::forEach);
+    }
+
+    @ApiOperation(value = "Get patients, streamed as NDJSON with one patient per line", response = Patient.class)
+    @GetMapping(produces = JsonStreaming.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getPatientsAsNdjson() {
+        return JsonStreaming.ndjson(objectMapper, proPatientService::forEach);
+    }
+
+    @ApiOperation(value = "Search patients by first name, last name, birth date or birth year, matching prefixes and typos, best matches first")
+    @GetMapping("/search")
+    public List<Patient> searchPatients(@RequestParam final String q,
+                                        @RequestParam(defaultValue = "10") final int limit) {
+        return proPatientService.search(q, Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS)));
+    }
+
+    @ApiOperation(value = "Create a patient")
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public Patient createPatient(@RequestBody final Patient patient) {
+        patient.setId(null);
+        return proPatientService.save(patient);
     }
 }
@@ -2,15 +2,16 @@ package com.example.pro.controller;
 
 import com.example.pro.entity.Practitioner;
 import com.example.pro.service.ProPractitionerService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @CrossOrigin
 @RestController
@@ -19,9 +20,18 @@ public class ProPractitionerController {
     @Autowired
     private ProPractitionerService proPractitionerService;
 
-    @ApiOperation(value = "Get practitioners")
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @ApiOperation(value = "Get practitioners, streamed as a chunked JSON array", response = Practitioner.class, responseContainer = "List")
     @GetMapping
-    public List<Practitioner> getPractitioners() {
-        return proPractitionerService.findAll();
+    public ResponseEntity<StreamingResponseBody> getPractitioners() {
+        return JsonStreaming.jsonArray(objectMapper, proPractitionerService::forEach);
+    }
+
+    @ApiOperation(value = "Get practitioners, streamed as NDJSON with one practitioner per line", response = Practitioner.class)
+    @GetMapping(produces = JsonStreaming.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getPractitionersAsNdjson() {
+        return JsonStreaming.ndjson(objectMapper, proPractitionerService::forEach);
     }
 }
@@ -0,0 +1,41 @@
+package com.example.pro.controller;
+
+import com.example.pro.entity.ScheduleRule;
+import com.example.pro.exception.InvalidScheduleRuleException;
+import com.example.pro.service.ProScheduleRuleService;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@CrossOrigin
+@RestController
+@RequestMapping(value = "/schedule-rules", produces = MediaType.APPLICATION_JSON_VALUE)
+public class ProScheduleRuleController {
+    @Autowired
+    private ProScheduleRuleService proScheduleRuleService;
+
+    @ApiOperation(value = "Get the recurring schedule rules of a practitioner")
+    @GetMapping("/{practitionerId}")
+    public List<ScheduleRule> getScheduleRulesByPractitioner(@PathVariable final Integer practitionerId) {
+        return proScheduleRuleService.findByPractitionerId(practitionerId);
+    }
+
+    @ApiOperation(value = "Add a recurring schedule rule, the availabilities of the practitioner are regenerated over the horizon")
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public ScheduleRule addScheduleRule(@RequestBody final ScheduleRule scheduleRule) throws InvalidScheduleRuleException {
+        scheduleRule.setId(null);
+        return proScheduleRuleService.save(scheduleRule);
+    }
+
+    @ApiOperation(value = "Remove a recurring schedule rule, the availabilities of the practitioner are regenerated over the horizon")
+    @DeleteMapping("/{scheduleRuleId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteScheduleRule(@PathVariable final Integer scheduleRuleId) {
+        proScheduleRuleService.delete(scheduleRuleId);
+    }
+}
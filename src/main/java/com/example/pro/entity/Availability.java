@@ -5,10 +5,14 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 import java.time.LocalDateTime;
 
 @Data
@@ -16,11 +20,21 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-public class Availability {
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_availability_practitioner_start", columnNames = {"practitionerId", "startDate"}))
+public class Availability implements CalendarInterval {
+    /**
+     * Ids handed out per sequence call: the sequence value is the first id of a block (pooled-lo optimizer).
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy= GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "availability_seq")
+    @SequenceGenerator(name = "availability_seq", sequenceName = "availability_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Integer id;
+    @Column(nullable = false)
     private Integer practitionerId;
+    @Column(nullable = false)
     private LocalDateTime startDate;
+    @Column(nullable = false)
     private LocalDateTime endDate;
 }
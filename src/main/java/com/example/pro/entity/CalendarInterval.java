@@ -0,0 +1,19 @@
+package com.example.pro.entity;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stored [startDate, endDate) interval of a practitioner calendar, unique by (practitionerId, startDate), which
+ * regeneration diffs by start date and updates in place.
+ */
+public interface CalendarInterval {
+    Integer getId();
+
+    Integer getPractitionerId();
+
+    LocalDateTime getStartDate();
+
+    LocalDateTime getEndDate();
+
+    void setEndDate(LocalDateTime endDate);
+}
@@ -0,0 +1,26 @@
+package com.example.pro.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Single row naming the database, created along with its schema. Files kept outside of the database, such as the
+ * calendar snapshots, record it to tell whether they were taken from the same database or from an earlier one.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+public class DatabaseIdentity {
+    public static final Integer ID = 1;
+
+    @Id
+    private Integer id;
+    private String token;
+}
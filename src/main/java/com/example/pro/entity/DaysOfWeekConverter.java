@@ -0,0 +1,30 @@
+package com.example.pro.entity;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.time.DayOfWeek;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Stores a set of days as their ISO numbers, e.g. {@code 1,2,3,4,5} from Monday to Friday.
+ */
+@Converter
+public class DaysOfWeekConverter implements AttributeConverter<Set<DayOfWeek>, String> {
+
+    @Override
+    public String convertToDatabaseColumn(Set<DayOfWeek> days) {
+        return days == null ? "" : days.stream().sorted().map(day -> String.valueOf(day.getValue())).collect(Collectors.joining(","));
+    }
+
+    @Override
+    public Set<DayOfWeek> convertToEntityAttribute(String column) {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        if (column != null && !column.isEmpty()) {
+            Arrays.stream(column.split(",")).map(day -> DayOfWeek.of(Integer.parseInt(day))).forEach(days::add);
+        }
+        return days;
+    }
+}
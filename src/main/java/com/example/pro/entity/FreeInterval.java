@@ -0,0 +1,44 @@
+package com.example.pro.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+
+/**
+ * A run of consecutive availabilities stored as one row, used when {@code pro.availability.storage=intervals}. It is
+ * cut into availabilities on the slot grid from its start date, the last one possibly shorter.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_free_interval_practitioner_start", columnNames = {"practitionerId", "startDate"}))
+public class FreeInterval implements CalendarInterval {
+    /**
+     * Ids handed out per sequence call: the sequence value is the first id of a block (pooled-lo optimizer).
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "free_interval_seq")
+    @SequenceGenerator(name = "free_interval_seq", sequenceName = "free_interval_seq", allocationSize = ID_ALLOCATION_SIZE)
+    private Integer id;
+    @Column(nullable = false)
+    private Integer practitionerId;
+    @Column(nullable = false)
+    private LocalDateTime startDate;
+    @Column(nullable = false)
+    private LocalDateTime endDate;
+}
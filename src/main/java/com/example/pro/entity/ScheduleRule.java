@@ -0,0 +1,62 @@
+package com.example.pro.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.Table;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Weekly recurring working hours of a practitioner, the equivalent of an RRULE
+ * {@code FREQ=WEEKLY;INTERVAL=intervalWeeks;BYDAY=daysOfWeek;UNTIL=validUntil} with {@code exceptionDates} as EXDATEs.
+ * An end time before or equal to the start time ends the occurrence on the next day.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "idx_schedule_rule_practitioner", columnList = "practitionerId"))
+public class ScheduleRule {
+    @Id
+    @GeneratedValue(strategy= GenerationType.AUTO)
+    private Integer id;
+    @Column(nullable = false)
+    private Integer practitionerId;
+    @Column(nullable = false)
+    @Convert(converter = DaysOfWeekConverter.class)
+    @Builder.Default
+    private Set<DayOfWeek> daysOfWeek = EnumSet.noneOf(DayOfWeek.class);
+    @Column(nullable = false)
+    private LocalTime startTime;
+    @Column(nullable = false)
+    private LocalTime endTime;
+    @Column(nullable = false)
+    @Builder.Default
+    private int intervalWeeks = 1;
+    @Column(nullable = false)
+    private LocalDate validFrom;
+    private LocalDate validUntil;
+    @ElementCollection
+    @CollectionTable(name = "schedule_rule_exception", joinColumns = @JoinColumn(name = "schedule_rule_id"))
+    @Column(name = "exception_date")
+    @Builder.Default
+    private Set<LocalDate> exceptionDates = new HashSet<>();
+}
@@ -0,0 +1,11 @@
+package com.example.pro.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidAppointmentException extends Exception {
+    public InvalidAppointmentException(String errorMessage) {
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.pro.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class SlotUnavailableException extends Exception {
+    public SlotUnavailableException(String errorMessage) {
+        super(errorMessage);
+    }
+}
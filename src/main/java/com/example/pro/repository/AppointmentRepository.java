@@ -1,13 +1,47 @@
 package com.example.pro.repository;
 
 import com.example.pro.entity.Appointment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface AppointmentRepository extends CrudRepository<Appointment, String> {
     List<Appointment> findByPractitionerId(Integer practitionerId);
+    List<Appointment> findByPractitionerIdIn(Collection<Integer> practitionerIds);
     List<Appointment> findAll();
+
+    @Query("select a from Appointment a")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Appointment> streamAll();
+
+    /**
+     * Appointments overlapping the [from, to) window.
+     */
+    List<Appointment> findByPractitionerIdAndStartDateLessThanAndEndDateGreaterThan(Integer practitionerId, LocalDateTime to, LocalDateTime from);
+
+    /**
+     * Keyset page of the rows starting before {@code to}, ordered by (startDate, id) and resuming strictly after
+     * the (afterStartDate, afterId) row.
+     */
+    @Query("select a from Appointment a where a.practitionerId = :practitionerId and a.startDate < :to"
+            + " and (a.startDate > :afterStartDate or (a.startDate = :afterStartDate and a.id > :afterId))"
+            + " order by a.startDate, a.id")
+    List<Appointment> findPage(@Param("practitionerId") Integer practitionerId,
+            @Param("afterStartDate") LocalDateTime afterStartDate,
+            @Param("afterId") Integer afterId,
+            @Param("to") LocalDateTime to,
+            Pageable pageable);
 }
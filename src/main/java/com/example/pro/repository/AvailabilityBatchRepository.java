@@ -0,0 +1,18 @@
+package com.example.pro.repository;
+
+import com.example.pro.scheduling.FreeSlots;
+
+import java.util.List;
+
+/**
+ * Bulk write path of {@link AvailabilityRepository}, bypassing the persistence context.
+ */
+public interface AvailabilityBatchRepository {
+
+    /**
+     * Inserts every slot of the given calendars with JDBC batches. Ids are pre-allocated from the availability
+     * sequence in blocks of {@link com.example.pro.entity.Availability#ID_ALLOCATION_SIZE}, with one sequence query
+     * per block of rows. Returns the number of inserted rows.
+     */
+    int insertAll(List<FreeSlots> calendars);
+}
@@ -0,0 +1,18 @@
+package com.example.pro.repository;
+
+import com.example.pro.entity.Availability;
+import com.example.pro.scheduling.FreeSlots;
+
+import java.util.List;
+
+class AvailabilityBatchRepositoryImpl extends FreeSlotsBatchInsert implements AvailabilityBatchRepository {
+
+    AvailabilityBatchRepositoryImpl() {
+        super("availability", "availability_seq", Availability.ID_ALLOCATION_SIZE);
+    }
+
+    @Override
+    public int insertAll(List<FreeSlots> calendars) {
+        return insertRows(calendars);
+    }
+}
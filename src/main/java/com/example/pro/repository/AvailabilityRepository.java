@@ -1,12 +1,56 @@
 package com.example.pro.repository;
 
 import com.example.pro.entity.Availability;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface AvailabilityRepository extends CrudRepository<Availability, String> {
+public interface AvailabilityRepository extends CrudRepository<Availability, String>, AvailabilityBatchRepository {
     List<Availability> findByPractitionerId(Integer id);
+
+    List<Availability> findByPractitionerIdOrderByStartDateAscIdAsc(Integer practitionerId);
+
+    List<Availability> findByPractitionerIdAndStartDateGreaterThanEqualAndStartDateLessThan(Integer practitionerId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Keyset page of the rows starting before {@code to}, ordered by (startDate, id) and resuming strictly after
+     * the (afterStartDate, afterId) row.
+     */
+    @Query("select a from Availability a where a.practitionerId = :practitionerId and a.startDate < :to"
+            + " and (a.startDate > :afterStartDate or (a.startDate = :afterStartDate and a.id > :afterId))"
+            + " order by a.startDate, a.id")
+    List<Availability> findPage(@Param("practitionerId") Integer practitionerId,
+            @Param("afterStartDate") LocalDateTime afterStartDate,
+            @Param("afterId") Integer afterId,
+            @Param("to") LocalDateTime to,
+            Pageable pageable);
+
+    /**
+     * First rows starting in [from, to) among the practitioners, ordered by (startDate, practitionerId).
+     */
+    @Query("select a from Availability a where a.practitionerId in :practitionerIds and a.startDate >= :from and a.startDate < :to"
+            + " order by a.startDate, a.practitionerId, a.id")
+    List<Availability> findFirstStarting(@Param("practitionerIds") Collection<Integer> practitionerIds,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            Pageable pageable);
+
+    /**
+     * Set-based delete, the persistence context is not synchronized.
+     */
+    @Modifying
+    @Query("delete from Availability a where a.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Modifying
+    @Query("delete from Availability a where a.practitionerId in :practitionerIds")
+    int deleteByPractitionerIdIn(@Param("practitionerIds") Collection<Integer> practitionerIds);
 }
@@ -0,0 +1,9 @@
+package com.example.pro.repository;
+
+import com.example.pro.entity.DatabaseIdentity;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DatabaseIdentityRepository extends CrudRepository<DatabaseIdentity, Integer> {
+}
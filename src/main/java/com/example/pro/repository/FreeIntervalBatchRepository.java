@@ -0,0 +1,17 @@
+package com.example.pro.repository;
+
+import com.example.pro.scheduling.FreeSlots;
+
+import java.util.List;
+
+/**
+ * Bulk write path of {@link FreeIntervalRepository}, bypassing the persistence context.
+ */
+public interface FreeIntervalBatchRepository {
+
+    /**
+     * Inserts every interval of the given calendars, already merged, with JDBC batches and ids pre-allocated from the
+     * free interval sequence. Returns the number of inserted rows.
+     */
+    int insertAll(List<FreeSlots> calendars);
+}
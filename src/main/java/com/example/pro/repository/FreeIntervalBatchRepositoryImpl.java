@@ -0,0 +1,18 @@
+package com.example.pro.repository;
+
+import com.example.pro.entity.FreeInterval;
+import com.example.pro.scheduling.FreeSlots;
+
+import java.util.List;
+
+class FreeIntervalBatchRepositoryImpl extends FreeSlotsBatchInsert implements FreeIntervalBatchRepository {
+
+    FreeIntervalBatchRepositoryImpl() {
+        super("free_interval", "free_interval_seq", FreeInterval.ID_ALLOCATION_SIZE);
+    }
+
+    @Override
+    public int insertAll(List<FreeSlots> calendars) {
+        return insertRows(calendars);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.pro.repository;
+
+import com.example.pro.entity.FreeInterval;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FreeIntervalRepository extends CrudRepository<FreeInterval, Integer>, FreeIntervalBatchRepository {
+    List<FreeInterval> findByPractitionerId(Integer practitionerId);
+
+    List<FreeInterval> findByPractitionerIdOrderByStartDateAsc(Integer practitionerId);
+
+    List<FreeInterval> findByPractitionerIdAndStartDateGreaterThanEqualAndStartDateLessThan(Integer practitionerId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * First intervals of the practitioner ending after {@code from} and starting before {@code to}, ordered by start
+     * date. Each holds at least one slot, so the n + 1 first cover a page of n slots, the first one possibly ending
+     * right after the cursor.
+     */
+    @Query("select i from FreeInterval i where i.practitionerId = :practitionerId and i.endDate > :from and i.startDate < :to"
+            + " order by i.startDate")
+    List<FreeInterval> findPage(@Param("practitionerId") Integer practitionerId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            Pageable pageable);
+
+    /**
+     * Intervals of the practitioners overlapping [from, to), ordered by practitioner then start date.
+     */
+    @Query("select i from FreeInterval i where i.practitionerId in :practitionerIds and i.startDate < :to and i.endDate > :from"
+            + " order by i.practitionerId, i.startDate")
+    List<FreeInterval> findOverlapping(@Param("practitionerIds") Collection<Integer> practitionerIds,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    /**
+     * Set-based delete, the persistence context is not synchronized.
+     */
+    @Modifying
+    @Query("delete from FreeInterval i where i.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Modifying
+    @Query("delete from FreeInterval i where i.practitionerId in :practitionerIds")
+    int deleteByPractitionerIdIn(@Param("practitionerIds") Collection<Integer> practitionerIds);
+}
@@ -0,0 +1,91 @@
+package com.example.pro.repository;
+
+import com.example.pro.scheduling.FreeSlots;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * JDBC batch insert of {@link FreeSlots} into a (id, practitioner_id, start_date, end_date) table whose ids come from
+ * a pooled sequence, shared by the bulk write paths of the calendar repositories.
+ * <p>
+ * As with the pooled optimizer of the entities, each sequence value is the first id of a block of
+ * {@code allocationSize} ids, drawn with the sequence SQL of the database dialect: one query per block of rows.
+ */
+abstract class FreeSlotsBatchInsert {
+
+    private final String insert;
+    private final String sequence;
+    private final int allocationSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SequenceSql sequenceSql;
+
+    @Value("${pro.availability.bulk.batch-size:1000}")
+    private int batchSize;
+
+    FreeSlotsBatchInsert(String table, String sequence, int allocationSize) {
+        this.insert = "insert into " + table + " (id, practitioner_id, start_date, end_date) values (?, ?, ?, ?)";
+        this.sequence = sequence;
+        this.allocationSize = allocationSize;
+    }
+
+    int insertRows(List<FreeSlots> calendars) {
+        // offsets[c] is the index of the first row of calendars[c] once all slots are laid end to end
+        int[] offsets = new int[calendars.size() + 1];
+        for (int c = 0; c < calendars.size(); c++) {
+            offsets[c + 1] = offsets[c] + calendars.get(c).size();
+        }
+        int rows = offsets[calendars.size()];
+        if (rows == 0) {
+            return 0;
+        }
+        int[] idBlocks = allocateIdBlocks((rows + allocationSize - 1) / allocationSize);
+
+        // rows are bound in order, so the calendar owning a row only ever moves forward
+        int[] owner = {0};
+        for (int from = 0; from < rows; from += batchSize) {
+            int batchStart = from;
+            int size = Math.min(batchSize, rows - from);
+            jdbcTemplate.batchUpdate(insert, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement statement, int i) throws SQLException {
+                    int row = batchStart + i;
+                    while (offsets[owner[0] + 1] <= row) {
+                        owner[0]++;
+                    }
+                    FreeSlots slots = calendars.get(owner[0]);
+                    int index = row - offsets[owner[0]];
+                    statement.setInt(1, idBlocks[row / allocationSize] + row % allocationSize);
+                    statement.setInt(2, slots.getPractitionerId());
+                    statement.setTimestamp(3, Timestamp.valueOf(slots.startDate(index)));
+                    statement.setTimestamp(4, Timestamp.valueOf(slots.endDate(index)));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+        return rows;
+    }
+
+    private int[] allocateIdBlocks(int blocks) {
+        String nextValue = sequenceSql.nextValueQuery(sequence);
+        int[] idBlocks = new int[blocks];
+        for (int i = 0; i < blocks; i++) {
+            idBlocks[i] = jdbcTemplate.queryForObject(nextValue, Integer.class);
+        }
+        return idBlocks;
+    }
+}
@@ -1,12 +1,26 @@
 package com.example.pro.repository;
 
 import com.example.pro.entity.Patient;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface PatientRepository extends CrudRepository<Patient, String> {
     List<Patient> findAll();
+
+    @Query("select p from Patient p")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Patient> streamAll();
+
+    @Query("select p.id from Patient p order by p.id")
+    List<Integer> findAllIds();
 }
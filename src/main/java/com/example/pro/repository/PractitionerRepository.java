@@ -1,13 +1,30 @@
 package com.example.pro.repository;
 
 import com.example.pro.entity.Practitioner;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface PractitionerRepository extends CrudRepository<Practitioner, String> {
     List<Practitioner> findAll();
 
+    @Query("select p from Practitioner p")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Practitioner> streamAll();
+
+    @Query("select p.id from Practitioner p order by p.id")
+    List<Integer> findAllIds();
+
+    @Query("select p.id from Practitioner p where p.speciality = :speciality")
+    List<Integer> findIdsBySpeciality(@Param("speciality") String speciality);
 }
@@ -0,0 +1,26 @@
+package com.example.pro.repository;
+
+import com.example.pro.entity.ScheduleRule;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ScheduleRuleRepository extends CrudRepository<ScheduleRule, Integer> {
+
+    /**
+     * Rules of the practitioner with their exception dates fetched in the same query.
+     */
+    @Query("select distinct r from ScheduleRule r left join fetch r.exceptionDates where r.practitionerId = :practitionerId")
+    List<ScheduleRule> findByPractitionerId(@Param("practitionerId") Integer practitionerId);
+
+    @Query("select distinct r from ScheduleRule r left join fetch r.exceptionDates where r.practitionerId in :practitionerIds")
+    List<ScheduleRule> findByPractitionerIdIn(@Param("practitionerIds") Collection<Integer> practitionerIds);
+
+    @Query("select distinct r.practitionerId from ScheduleRule r")
+    List<Integer> findPractitionerIds();
+}
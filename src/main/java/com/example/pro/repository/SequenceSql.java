@@ -0,0 +1,37 @@
+package com.example.pro.repository;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Sequence SQL of the database in use, taken from the Hibernate dialect, for the JDBC write paths that draw their ids
+ * from the same sequences as the entities.
+ */
+@Component
+public class SequenceSql {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Expression drawing the next value of the sequence within another statement, such as the values of an insert.
+     */
+    public String nextValueExpression(String sequence) {
+        return dialect().getSelectSequenceNextValString(sequence);
+    }
+
+    /**
+     * Statement returning the next value of the sequence.
+     */
+    public String nextValueQuery(String sequence) {
+        return dialect().getSequenceNextValString(sequence);
+    }
+
+    private Dialect dialect() {
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+    }
+}
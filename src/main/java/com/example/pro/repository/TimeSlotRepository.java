@@ -4,9 +4,17 @@ import com.example.pro.entity.TimeSlot;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface TimeSlotRepository extends CrudRepository<TimeSlot, String> {
     List<TimeSlot> findByPractitionerId(Integer practitionerId);
+    List<TimeSlot> findByPractitionerIdIn(Collection<Integer> practitionerIds);
+
+    /**
+     * Time slots overlapping or touching the [from, to] window.
+     */
+    List<TimeSlot> findByPractitionerIdAndStartDateLessThanEqualAndEndDateGreaterThanEqual(Integer practitionerId, LocalDateTime to, LocalDateTime from);
 }
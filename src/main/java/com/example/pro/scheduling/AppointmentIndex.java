@@ -0,0 +1,138 @@
+package com.example.pro.scheduling;
+
+import com.example.pro.entity.Appointment;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU index of the committed appointments of each practitioner, see {@link AppointmentIntervals}.
+ * <p>
+ * An index is loaded once, then kept current by the appointment writes: a booking or a cancellation is applied to it
+ * when its transaction commits, and is dropped with it on rollback. Bulk writers bypassing the entities evict the
+ * practitioners they touch instead. As in {@link AvailabilityCache}, a load that raced with a write is not stored.
+ */
+@Component
+public class AppointmentIndex implements MeterBinder {
+
+    private final int maxPractitioners;
+    private final Map<Integer, AppointmentIntervals> entries;
+    private final AtomicLong writeStamp = new AtomicLong();
+
+    public AppointmentIndex(@Value("${pro.appointment.index.max-practitioners:10000}") int maxPractitioners) {
+        this.maxPractitioners = maxPractitioners;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, AppointmentIntervals> eldest) {
+                return size() > AppointmentIndex.this.maxPractitioners;
+            }
+        };
+    }
+
+    /**
+     * Returns the index of the practitioner, built from the loaded appointments on a miss.
+     */
+    public AppointmentIntervals get(Integer practitionerId, Supplier<List<Appointment>> loader) {
+        synchronized (entries) {
+            AppointmentIntervals indexed = entries.get(practitionerId);
+            if (indexed != null) {
+                return indexed;
+            }
+        }
+        long stamp = writeStamp.get();
+        AppointmentIntervals loaded = new AppointmentIntervals(loader.get());
+        synchronized (entries) {
+            if (maxPractitioners > 0 && stamp == writeStamp.get()) {
+                entries.put(practitionerId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Indexes an inserted or updated appointment once its transaction commits.
+     */
+    public void saved(Appointment appointment) {
+        afterCommit(() -> {
+            AppointmentIntervals indexed = written(appointment.getPractitionerId());
+            if (indexed != null) {
+                indexed.remove(appointment.getId());
+                indexed.add(appointment);
+            }
+        });
+    }
+
+    public void removed(Appointment appointment) {
+        Integer appointmentId = appointment.getId();
+        afterCommit(() -> {
+            AppointmentIntervals indexed = written(appointment.getPractitionerId());
+            if (indexed != null) {
+                indexed.remove(appointmentId);
+            }
+        });
+    }
+
+    public void evictAll(Collection<Integer> practitionerIds) {
+        evictNow(practitionerIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(practitionerIds);
+                }
+            });
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("pro.appointment.index.size", this, AppointmentIndex::size)
+                .description("Practitioners whose appointments are indexed").register(registry);
+    }
+
+    private AppointmentIntervals written(Integer practitionerId) {
+        synchronized (entries) {
+            writeStamp.incrementAndGet();
+            return entries.get(practitionerId);
+        }
+    }
+
+    private void evictNow(Collection<Integer> practitionerIds) {
+        synchronized (entries) {
+            writeStamp.incrementAndGet();
+            for (Integer practitionerId : practitionerIds) {
+                entries.remove(practitionerId);
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
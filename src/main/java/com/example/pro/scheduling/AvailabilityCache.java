@@ -0,0 +1,163 @@
+package com.example.pro.scheduling;
+
+import com.example.pro.entity.Availability;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * LRU cache of the availabilities of each practitioner, sorted by start date, bounded by the number of availabilities
+ * it holds: calendars differ in size by orders of magnitude, a bound on practitioners alone would not bound memory.
+ * The least recently read practitioners are evicted until the cached rows fit, a calendar larger than the bound is
+ * served without being cached.
+ * <p>
+ * Writers evict the practitioners they touch, once right away and once more after their transaction completes, so a
+ * reader never gets back rows that a committed booking already consumed. A load that raced with an eviction is not
+ * stored: every eviction bumps a stamp and a loaded list is only cached when the stamp did not move meanwhile.
+ * <p>
+ * Evictions also bump the calendar version of each practitioner, which tags the HTTP representations of its
+ * availabilities and appointments: a version read before the calendar is never paired with an older calendar.
+ * <p>
+ * Size and counters are published as {@code pro.availability.cache.*} meters.
+ */
+@Component
+public class AvailabilityCache implements MeterBinder {
+
+    private final long maxRows;
+    private final Map<Integer, List<Availability>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long rows;
+    private final AtomicLong evictionStamp = new AtomicLong();
+    // versions restart on every run, the epoch keeps them from matching the tags of a previous one
+    private final String versionEpoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Integer, Long> versions = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong sizeEvictions = new AtomicLong();
+
+    public AvailabilityCache(@Value("${pro.availability.cache.max-rows:1000000}") long maxRows) {
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Returns the cached availabilities of the practitioner, loading them on a miss. The list must be sorted by start date.
+     */
+    public List<Availability> get(Integer practitionerId, Supplier<List<Availability>> loader) {
+        synchronized (entries) {
+            List<Availability> cached = entries.get(practitionerId);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+        long stamp = evictionStamp.get();
+        List<Availability> loaded = Collections.unmodifiableList(loader.get());
+        synchronized (entries) {
+            if (loaded.size() <= maxRows && stamp == evictionStamp.get()) {
+                put(practitionerId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns the cached availabilities of the practitioner, or null without loading them on a miss.
+     */
+    public List<Availability> getIfPresent(Integer practitionerId) {
+        synchronized (entries) {
+            List<Availability> cached = entries.get(practitionerId);
+            (cached != null ? hits : misses).incrementAndGet();
+            return cached;
+        }
+    }
+
+    public void evict(Integer practitionerId) {
+        evictNow(Collections.singleton(practitionerId));
+        afterTransaction(() -> evictNow(Collections.singleton(practitionerId)));
+    }
+
+    public void evictAll(Collection<Integer> practitionerIds) {
+        evictNow(practitionerIds);
+        afterTransaction(() -> evictNow(practitionerIds));
+    }
+
+    /**
+     * Opaque version of the calendar of the practitioner, changed by every eviction.
+     */
+    public String getVersion(Integer practitionerId) {
+        synchronized (entries) {
+            return versionEpoch + "-" + versions.getOrDefault(practitionerId, 0L);
+        }
+    }
+
+    public AvailabilityCacheStats getStats() {
+        synchronized (entries) {
+            return new AvailabilityCacheStats(entries.size(), rows, maxRows, hits.get(), misses.get(), invalidations.get(), sizeEvictions.get());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("pro.availability.cache.size", this, cache -> cache.getStats().getSize())
+                .description("Practitioners whose availabilities are cached").register(registry);
+        Gauge.builder("pro.availability.cache.rows", this, cache -> cache.getStats().getRows())
+                .description("Availabilities held by the cache").register(registry);
+        FunctionCounter.builder("pro.availability.cache.requests", hits, AtomicLong::get).tag("result", "hit").register(registry);
+        FunctionCounter.builder("pro.availability.cache.requests", misses, AtomicLong::get).tag("result", "miss").register(registry);
+        FunctionCounter.builder("pro.availability.cache.evictions", invalidations, AtomicLong::get).tag("cause", "invalidation").register(registry);
+        FunctionCounter.builder("pro.availability.cache.evictions", sizeEvictions, AtomicLong::get).tag("cause", "size").register(registry);
+    }
+
+    private void evictNow(Collection<Integer> practitionerIds) {
+        synchronized (entries) {
+            evictionStamp.incrementAndGet();
+            for (Integer practitionerId : practitionerIds) {
+                versions.merge(practitionerId, 1L, Long::sum);
+                List<Availability> removed = entries.remove(practitionerId);
+                if (removed != null) {
+                    rows -= removed.size();
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    // under the lock of the entries
+    private void put(Integer practitionerId, List<Availability> availabilities) {
+        List<Availability> replaced = entries.put(practitionerId, availabilities);
+        rows += availabilities.size() - (replaced == null ? 0 : replaced.size());
+        Iterator<List<Availability>> eldest = entries.values().iterator();
+        while (rows > maxRows) {
+            rows -= eldest.next().size();
+            eldest.remove();
+            sizeEvictions.incrementAndGet();
+        }
+    }
+
+    private static void afterTransaction(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.pro.scheduling;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class AvailabilityCacheStats {
+    private final int size;
+    private final long rows;
+    private final long maxRows;
+    private final long hits;
+    private final long misses;
+    private final long invalidations;
+    private final long sizeEvictions;
+
+    public double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.pro.scheduling;
+
+import com.example.pro.entity.Appointment;
+import com.example.pro.entity.Availability;
+import com.example.pro.entity.TimeSlot;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Computes the availabilities of a practitioner with a single sorted sweep over its time slots and appointments.
+ * <p>
+ * Inside a time slot, availabilities are laid out every {@link #SLOT_DURATION} starting from the slot start.
+ * When a candidate availability overlaps an appointment, the grid is realigned on the end of that appointment,
+ * so an odd-length appointment never wastes the minutes that follow it. The last availability of a time slot
+ * is truncated to the end of the slot.
+ * <p>
+ * Cost is one sort of each input plus one linear pass, there is no per-minute iteration.
+ */
+public final class AvailabilitySweep {
+
+    public static final Duration SLOT_DURATION = Duration.ofMinutes(15);
+
+    private AvailabilitySweep() {
+    }
+
+    public static List<Availability> sweep(Integer practitionerId, Collection<TimeSlot> timeSlots, Collection<Appointment> appointments) {
+        List<LocalDateTime[]> workingIntervals = mergeTimeSlots(timeSlots);
+        List<Appointment> sortedAppointments = appointments.stream()
+                .filter(appointment -> isValid(appointment.getStartDate(), appointment.getEndDate()))
+                .sorted(Comparator.comparing(Appointment::getStartDate))
+                .collect(Collectors.toList());
+
+        List<Availability> availabilities = new ArrayList<>();
+        int next = 0;
+        for (LocalDateTime[] interval : workingIntervals) {
+            LocalDateTime cursor = interval[0];
+            LocalDateTime end = interval[1];
+            while (cursor.isBefore(end)) {
+                LocalDateTime candidateEnd = cursor.plus(SLOT_DURATION);
+                // appointments are sorted by start: once the head ends after the cursor, nothing behind it can overlap first
+                while (next < sortedAppointments.size() && !sortedAppointments.get(next).getEndDate().isAfter(cursor)) {
+                    next++;
+                }
+                if (next < sortedAppointments.size() && sortedAppointments.get(next).getStartDate().isBefore(candidateEnd)) {
+                    cursor = sortedAppointments.get(next).getEndDate();
+                    continue;
+                }
+                availabilities.add(Availability.builder()
+                        .practitionerId(practitionerId)
+                        .startDate(cursor)
+                        .endDate(candidateEnd.isAfter(end) ? end : candidateEnd)
+                        .build());
+                cursor = candidateEnd;
+            }
+        }
+        return availabilities;
+    }
+
+    /**
+     * Sorts the time slots and merges the ones that overlap or touch, so that each working interval is swept once.
+     */
+    static List<LocalDateTime[]> mergeTimeSlots(Collection<TimeSlot> timeSlots) {
+        List<TimeSlot> sorted = timeSlots.stream()
+                .filter(timeSlot -> isValid(timeSlot.getStartDate(), timeSlot.getEndDate()))
+                .sorted(Comparator.comparing(TimeSlot::getStartDate))
+                .collect(Collectors.toList());
+
+        List<LocalDateTime[]> merged = new ArrayList<>();
+        LocalDateTime[] current = null;
+        for (TimeSlot timeSlot : sorted) {
+            if (current != null && !timeSlot.getStartDate().isAfter(current[1])) {
+                if (timeSlot.getEndDate().isAfter(current[1])) {
+                    current[1] = timeSlot.getEndDate();
+                }
+            } else {
+                current = new LocalDateTime[]{timeSlot.getStartDate(), timeSlot.getEndDate()};
+                merged.add(current);
+            }
+        }
+        return merged;
+    }
+
+    private static boolean isValid(LocalDateTime start, LocalDateTime end) {
+        return start != null && end != null && start.isBefore(end);
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.pro.scheduling;
+
+import com.example.pro.entity.Appointment;
+import com.example.pro.entity.TimeSlot;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Minute-resolution occupancy of a practitioner calendar: one bit per minute for working time (time slots) and one
+ * for busy time (appointments), starting at the midnight before the first time slot. A week fits in about 2.5 KB.
+ * <p>
+ * {@link #freeSlots(Integer, int)} lays out the same grid as {@link AvailabilitySweep}, realigned after each appointment and
+ * truncated at the end of working time, but jumps between runs of bits with word-level scans. Working time is
+ * rounded inwards and busy time outwards to the minute.
+ * <p>
+ * {@link #freeWindows} answers any consultation length from the same bits, without stored rows per duration.
+ */
+public final class CalendarBitmap {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final LocalDateTime origin;
+    private final long originEpochSecond;
+    private final BitSet working;
+    private final BitSet busy;
+
+    private CalendarBitmap(LocalDateTime origin, LocalDateTime last) {
+        this.origin = origin;
+        this.originEpochSecond = origin.toEpochSecond(ZoneOffset.UTC);
+        int minutes = (int) Math.max(0, ceilMinute(last) + Duration.ofDays(1).toMinutes());
+        this.working = new BitSet(minutes);
+        this.busy = new BitSet(minutes);
+    }
+
+    public static CalendarBitmap of(Collection<TimeSlot> timeSlots, Collection<Appointment> appointments) {
+        LocalDateTime first = null;
+        LocalDateTime last = null;
+        for (TimeSlot timeSlot : timeSlots) {
+            if (isValid(timeSlot.getStartDate(), timeSlot.getEndDate())) {
+                if (first == null || timeSlot.getStartDate().isBefore(first)) {
+                    first = timeSlot.getStartDate();
+                }
+                if (last == null || timeSlot.getEndDate().isAfter(last)) {
+                    last = timeSlot.getEndDate();
+                }
+            }
+        }
+        if (first == null) {
+            return new CalendarBitmap(LocalDateTime.MIN, LocalDateTime.MIN);
+        }
+        CalendarBitmap bitmap = new CalendarBitmap(first.truncatedTo(ChronoUnit.DAYS), last);
+        for (TimeSlot timeSlot : timeSlots) {
+            if (isValid(timeSlot.getStartDate(), timeSlot.getEndDate())) {
+                bitmap.mark(bitmap.working, bitmap.ceilMinute(timeSlot.getStartDate()), bitmap.floorMinute(timeSlot.getEndDate()));
+            }
+        }
+        // appointments far after the end of working time cannot shift any slot, they are clipped a day after it
+        long horizon = bitmap.ceilMinute(last) + Duration.ofDays(1).toMinutes();
+        for (Appointment appointment : appointments) {
+            if (isValid(appointment.getStartDate(), appointment.getEndDate())) {
+                long start = Math.max(0, bitmap.floorMinute(appointment.getStartDate()));
+                long end = Math.min(horizon, bitmap.ceilMinute(appointment.getEndDate()));
+                bitmap.mark(bitmap.busy, start, end);
+            }
+        }
+        return bitmap;
+    }
+
+    public FreeSlots freeSlots(Integer practitionerId, int slotMinutes) {
+        FreeSlots slots = new FreeSlots(practitionerId, origin, working.cardinality() / slotMinutes);
+        int cursor = working.nextSetBit(0);
+        while (cursor >= 0) {
+            int runEnd = working.nextClearBit(cursor);
+            int candidateEnd = cursor + slotMinutes;
+            int busyAt = busy.nextSetBit(cursor);
+            if (busyAt >= 0 && busyAt < candidateEnd) {
+                cursor = busy.nextClearBit(busyAt);
+                if (!working.get(cursor)) {
+                    cursor = working.nextSetBit(cursor);
+                }
+                continue;
+            }
+            slots.add(cursor, Math.min(candidateEnd, runEnd));
+            cursor = candidateEnd < runEnd ? candidateEnd : working.nextSetBit(runEnd);
+        }
+        return slots;
+    }
+
+    /**
+     * Free windows of {@code durationMinutes} starting in [from, to) on a grid of {@code gridMinutes} restarting at
+     * every midnight, inside working time and clear of appointments. Windows overlap when the grid is finer than the
+     * duration.
+     */
+    public FreeSlots freeWindows(Integer practitionerId, int durationMinutes, int gridMinutes, LocalDateTime from, LocalDateTime to) {
+        FreeSlots windows = new FreeSlots(practitionerId, origin, 16);
+        int fromMinute = (int) Math.max(0, Math.min(working.length(), ceilMinute(from)));
+        int toMinute = (int) Math.max(0, Math.min(working.length(), ceilMinute(to)));
+        int cursor = working.nextSetBit(fromMinute);
+        while (cursor >= 0 && cursor < toMinute) {
+            int runEnd = working.nextClearBit(cursor);
+            int busyAt = busy.nextSetBit(cursor);
+            int freeEnd = busyAt >= 0 && busyAt < runEnd ? busyAt : runEnd;
+            for (int start = alignToGrid(cursor, gridMinutes); start + durationMinutes <= freeEnd && start < toMinute;
+                 start = Math.min(start + gridMinutes, start - start % MINUTES_PER_DAY + MINUTES_PER_DAY)) {
+                windows.add(start, start + durationMinutes);
+            }
+            if (freeEnd == runEnd) {
+                cursor = working.nextSetBit(runEnd);
+            } else {
+                cursor = busy.nextClearBit(busyAt);
+                if (!working.get(cursor)) {
+                    cursor = working.nextSetBit(cursor);
+                }
+            }
+        }
+        return windows;
+    }
+
+    /**
+     * Whether the whole [start, end) range is working time clear of appointments, partial minutes included.
+     */
+    public boolean isFree(LocalDateTime start, LocalDateTime end) {
+        long from = floorMinute(start);
+        long to = ceilMinute(end);
+        if (from < 0 || from >= to || to > working.length()) {
+            return false;
+        }
+        int busyAt = busy.nextSetBit((int) from);
+        return working.nextClearBit((int) from) >= to && (busyAt < 0 || busyAt >= to);
+    }
+
+    // the origin is a midnight, so is every multiple of MINUTES_PER_DAY
+    private static int alignToGrid(int minute, int gridMinutes) {
+        int dayStart = minute - minute % MINUTES_PER_DAY;
+        int aligned = dayStart + (minute - dayStart + gridMinutes - 1) / gridMinutes * gridMinutes;
+        return Math.min(aligned, dayStart + MINUTES_PER_DAY);
+    }
+
+    private void mark(BitSet bits, long fromMinute, long toMinute) {
+        if (fromMinute < toMinute) {
+            bits.set((int) fromMinute, (int) toMinute);
+        }
+    }
+
+    private long floorMinute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC) - originEpochSecond, 60);
+    }
+
+    private long ceilMinute(LocalDateTime dateTime) {
+        long seconds = dateTime.toEpochSecond(ZoneOffset.UTC) - originEpochSecond;
+        return Math.floorDiv(seconds, 60) + (Math.floorMod(seconds, 60) != 0 || dateTime.getNano() != 0 ? 1 : 0);
+    }
+
+    private static boolean isValid(LocalDateTime start, LocalDateTime end) {
+        return start != null && end != null && start.isBefore(end);
+    }
+}
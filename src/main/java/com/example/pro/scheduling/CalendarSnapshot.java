@@ -0,0 +1,293 @@
+package com.example.pro.scheduling;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Compact file image of the stored calendars: per practitioner, its rows as minute offsets from the midnight before the
+ * first one, each row written as two varints, the gap since the end of the previous row and its length. A 15 minute
+ * slot takes two or three bytes.
+ * <p>
+ * The header keeps the journal sequence to replay from, the day the snapshot was taken, which fixes the horizon of
+ * the schedule rules it holds, the storage of the rows and the identity of the database they were read from. A
+ * snapshot is written to a temporary file and moved in place once complete, so a reader never sees a partial one.
+ */
+public final class CalendarSnapshot {
+
+    private static final int MAGIC = 0x50524f53;
+    private static final int VERSION = 2;
+
+    private final long replayFrom;
+    private final LocalDate takenOn;
+    private final String storage;
+    private final String databaseId;
+
+    private CalendarSnapshot(long replayFrom, LocalDate takenOn, String storage, String databaseId) {
+        this.replayFrom = replayFrom;
+        this.takenOn = takenOn;
+        this.storage = storage;
+        this.databaseId = databaseId;
+    }
+
+    public long getReplayFrom() {
+        return replayFrom;
+    }
+
+    public LocalDate getTakenOn() {
+        return takenOn;
+    }
+
+    public String getStorage() {
+        return storage;
+    }
+
+    public String getDatabaseId() {
+        return databaseId;
+    }
+
+    /**
+     * Starts a snapshot at {@code path}, rows must then be added grouped by practitioner and sorted by start date. The
+     * previous snapshot is only replaced by {@link Writer#publish()}.
+     */
+    public static Writer write(Path path, long replayFrom, LocalDate takenOn, String storage, String databaseId) {
+        return new Writer(path, new CalendarSnapshot(replayFrom, takenOn, storage, databaseId));
+    }
+
+    /**
+     * Opens a snapshot, or returns null when there is none at {@code path}.
+     */
+    public static Reader read(Path path) {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                input.close();
+                return null;
+            }
+            CalendarSnapshot snapshot = new CalendarSnapshot(input.readLong(), LocalDate.ofEpochDay(input.readLong()), input.readUTF(), input.readUTF());
+            return new Reader(input, snapshot);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static final class Writer implements Closeable {
+        private final Path path;
+        private final Path temporary;
+        private final DataOutputStream output;
+        private final CalendarSnapshot snapshot;
+        private Integer practitionerId;
+        private LocalDateTime origin;
+        private FreeSlots current;
+        private int practitioners;
+        private long rows;
+        private boolean published;
+
+        private Writer(Path path, CalendarSnapshot snapshot) {
+            this.path = path;
+            this.temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            this.snapshot = snapshot;
+            try {
+                this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16));
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeLong(snapshot.replayFrom);
+                output.writeLong(snapshot.takenOn.toEpochDay());
+                output.writeUTF(snapshot.storage);
+                output.writeUTF(snapshot.databaseId);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public void add(Integer practitionerId, LocalDateTime startDate, LocalDateTime endDate) {
+            if (!practitionerId.equals(this.practitionerId)) {
+                flush();
+                this.practitionerId = practitionerId;
+                this.origin = startDate.truncatedTo(ChronoUnit.DAYS);
+                this.current = new FreeSlots(practitionerId, origin, 64);
+            }
+            current.add((int) ChronoUnit.MINUTES.between(origin, startDate), (int) ChronoUnit.MINUTES.between(origin, endDate));
+            rows++;
+        }
+
+        /**
+         * Adds a whole calendar, of a practitioner not added yet.
+         */
+        public void add(FreeSlots calendar) {
+            for (int i = 0; i < calendar.size(); i++) {
+                add(calendar.getPractitionerId(), calendar.startDate(i), calendar.endDate(i));
+            }
+        }
+
+        public CalendarSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        public int getPractitioners() {
+            return practitioners;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * Completes the snapshot and moves it in place of the previous one.
+         */
+        public void publish() {
+            try {
+                flush();
+                output.writeInt(-1);
+                output.close();
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                published = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Drops the snapshot unless it was published.
+         */
+        @Override
+        public void close() {
+            if (published) {
+                return;
+            }
+            try {
+                output.close();
+                Files.deleteIfExists(temporary);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void flush() {
+            if (current == null) {
+                return;
+            }
+            try {
+                output.writeInt(practitionerId);
+                output.writeLong(ChronoUnit.MINUTES.between(LocalDateTime.of(1970, 1, 1, 0, 0), origin));
+                writeVarint(current.size());
+                int previousEnd = 0;
+                for (int i = 0; i < current.size(); i++) {
+                    int start = current.startMinute(i);
+                    int end = current.endMinute(i);
+                    writeVarint(start - previousEnd);
+                    writeVarint(end - start);
+                    previousEnd = end;
+                }
+                practitioners++;
+                current = null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeVarint(int value) throws IOException {
+            // zigzag, overlapping rows of a corrupted calendar give negative gaps
+            int zigzag = (value << 1) ^ (value >> 31);
+            while ((zigzag & ~0x7F) != 0) {
+                output.writeByte((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            output.writeByte(zigzag);
+        }
+    }
+
+    /**
+     * Iterates over the calendars of a snapshot one practitioner at a time.
+     */
+    public static final class Reader implements Iterator<FreeSlots>, Closeable {
+        private final DataInputStream input;
+        private final CalendarSnapshot snapshot;
+        private FreeSlots next;
+
+        private Reader(DataInputStream input, CalendarSnapshot snapshot) {
+            this.input = input;
+            this.snapshot = snapshot;
+            this.next = readNext();
+        }
+
+        public CalendarSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public FreeSlots next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            FreeSlots current = next;
+            next = readNext();
+            return current;
+        }
+
+        @Override
+        public void close() {
+            try {
+                input.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private FreeSlots readNext() {
+            try {
+                int practitionerId = input.readInt();
+                if (practitionerId == -1) {
+                    return null;
+                }
+                LocalDateTime origin = LocalDateTime.of(1970, 1, 1, 0, 0).plusMinutes(input.readLong());
+                int size = readVarint();
+                FreeSlots slots = new FreeSlots(practitionerId, origin, size);
+                int previousEnd = 0;
+                for (int i = 0; i < size; i++) {
+                    int start = previousEnd + readVarint();
+                    int end = start + readVarint();
+                    slots.add(start, end);
+                    previousEnd = end;
+                }
+                return slots;
+            } catch (EOFException e) {
+                throw new IllegalStateException("Truncated calendar snapshot", e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = input.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (value >>> 1) ^ -(value & 1);
+                }
+            }
+        }
+    }
+}
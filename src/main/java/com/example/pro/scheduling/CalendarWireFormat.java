@@ -0,0 +1,221 @@
+package com.example.pro.scheduling;
+
+import com.example.pro.entity.Appointment;
+import com.example.pro.entity.Availability;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compact encoding of availability and appointment lists, served instead of JSON to clients accepting
+ * {@link #MEDIA_TYPE_VALUE}.
+ * <p>
+ * After a version and a kind byte, rows come in runs of one practitioner: its id and the run length, then every row as
+ * zigzag varints, the gap in minutes since the end of the previous row, counted from 1970-01-01T00:00 for the first
+ * one, its length, the difference of its id with the previous id and, for appointments, the patient id. Missing ids
+ * are written as 0, so non-negative differences and patient ids are shifted by one. A 15 minute slot of a generated
+ * calendar takes three bytes where JSON takes about ninety.
+ * <p>
+ * Dates are the local date-times of the calendar on whole minutes, as slots and bookings always are; a row with
+ * seconds is rejected rather than rounded.
+ */
+public final class CalendarWireFormat {
+
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.pro.calendar";
+
+    private static final int VERSION = 1;
+    private static final int EMPTY = 0;
+    private static final int AVAILABILITIES = 1;
+    private static final int APPOINTMENTS = 2;
+
+    private CalendarWireFormat() {
+    }
+
+    /**
+     * Encodes a list of availabilities or of appointments, in their order.
+     */
+    public static byte[] encode(List<?> rows) {
+        Output output = new Output(16 + 4 * rows.size());
+        output.write(VERSION);
+        if (rows.isEmpty()) {
+            output.write(EMPTY);
+            return output.toByteArray();
+        }
+        boolean appointments = rows.get(0) instanceof Appointment;
+        if (!appointments && !(rows.get(0) instanceof Availability)) {
+            throw new IllegalArgumentException("Not a calendar row: " + rows.get(0).getClass().getName());
+        }
+        output.write(appointments ? APPOINTMENTS : AVAILABILITIES);
+        int from = 0;
+        while (from < rows.size()) {
+            Integer practitionerId = practitionerId(rows.get(from), appointments);
+            int to = from + 1;
+            while (to < rows.size() && Objects.equals(practitionerId, practitionerId(rows.get(to), appointments))) {
+                to++;
+            }
+            output.writeSigned(practitionerId == null ? 0 : practitionerId);
+            output.writeSigned(to - from);
+            long previousEnd = 0;
+            long previousId = 0;
+            for (int i = from; i < to; i++) {
+                Object row = rows.get(i);
+                long start;
+                long end;
+                Integer id;
+                if (appointments) {
+                    Appointment appointment = (Appointment) row;
+                    start = epochMinute(appointment.getStartDate());
+                    end = epochMinute(appointment.getEndDate());
+                    id = appointment.getId();
+                } else {
+                    Availability availability = (Availability) row;
+                    start = epochMinute(availability.getStartDate());
+                    end = epochMinute(availability.getEndDate());
+                    id = availability.getId();
+                }
+                output.writeSigned(start - previousEnd);
+                output.writeSigned(end - start);
+                output.writeSigned(id == null ? 0 : id - previousId + (id >= previousId ? 1 : 0));
+                if (appointments) {
+                    Integer patientId = ((Appointment) row).getPatientId();
+                    output.writeSigned(patientId == null ? 0 : patientId + (patientId >= 0 ? 1 : 0));
+                }
+                previousEnd = end;
+                previousId = id == null ? previousId : id;
+            }
+            from = to;
+        }
+        return output.toByteArray();
+    }
+
+    public static List<Availability> decodeAvailabilities(byte[] bytes) {
+        List<Availability> availabilities = new ArrayList<>();
+        decode(bytes, AVAILABILITIES, (practitionerId, id, start, end, patientId) -> availabilities.add(Availability.builder()
+                .id(id).practitionerId(practitionerId).startDate(start).endDate(end).build()));
+        return availabilities;
+    }
+
+    public static List<Appointment> decodeAppointments(byte[] bytes) {
+        List<Appointment> appointments = new ArrayList<>();
+        decode(bytes, APPOINTMENTS, (practitionerId, id, start, end, patientId) -> appointments.add(Appointment.builder()
+                .id(id).practitionerId(practitionerId).patientId(patientId).startDate(start).endDate(end).build()));
+        return appointments;
+    }
+
+    private static void decode(byte[] bytes, int kind, RowConsumer rows) {
+        Input input = new Input(bytes);
+        if (input.read() != VERSION) {
+            throw new IllegalArgumentException("Unknown calendar wire format version");
+        }
+        int actualKind = input.read();
+        if (actualKind == EMPTY) {
+            return;
+        }
+        if (actualKind != kind) {
+            throw new IllegalArgumentException("Calendar payload of kind " + actualKind + ", expected " + kind);
+        }
+        while (input.hasMore()) {
+            int practitionerId = (int) input.readSigned();
+            long size = input.readSigned();
+            long previousEnd = 0;
+            long previousId = 0;
+            for (long i = 0; i < size; i++) {
+                long start = previousEnd + input.readSigned();
+                long end = start + input.readSigned();
+                Integer id = shifted(input.readSigned(), previousId);
+                Integer patientId = kind == APPOINTMENTS ? shifted(input.readSigned(), 0) : null;
+                rows.accept(practitionerId, id, dateTime(start), dateTime(end), patientId);
+                previousEnd = end;
+                previousId = id == null ? previousId : id;
+            }
+        }
+    }
+
+    private static Integer shifted(long value, long base) {
+        return value == 0 ? null : (int) (base + (value > 0 ? value - 1 : value));
+    }
+
+    private static Integer practitionerId(Object row, boolean appointments) {
+        return appointments ? ((Appointment) row).getPractitionerId() : ((Availability) row).getPractitionerId();
+    }
+
+    private static long epochMinute(LocalDateTime dateTime) {
+        if (dateTime.getSecond() != 0 || dateTime.getNano() != 0) {
+            throw new IllegalArgumentException("Calendar date " + dateTime + " is not on a whole minute");
+        }
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static LocalDateTime dateTime(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+
+    private interface RowConsumer {
+        void accept(int practitionerId, Integer id, LocalDateTime start, LocalDateTime end, Integer patientId);
+    }
+
+    private static final class Output {
+        private byte[] bytes;
+        private int size;
+
+        private Output(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        private void write(int value) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        private void writeSigned(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                write((int) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            write((int) zigzag);
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+
+    private static final class Input {
+        private final byte[] bytes;
+        private int position;
+
+        private Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private boolean hasMore() {
+            return position < bytes.length;
+        }
+
+        private int read() {
+            if (position == bytes.length) {
+                throw new IllegalArgumentException("Truncated calendar payload");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        private long readSigned() {
+            long zigzag = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = read();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+            }
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+    }
+}
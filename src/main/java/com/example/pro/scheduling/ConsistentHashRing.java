@@ -0,0 +1,104 @@
+package com.example.pro.scheduling;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent hash ring assigning practitioners to nodes. Every node is placed at {@code virtualNodes} points
+ * of the ring and owns the keys hashed up to each of its points, so load is spread evenly and a node joining or
+ * leaving only moves the keys it takes or gives back, about one node's share.
+ */
+public final class ConsistentHashRing {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final int virtualNodes;
+    private final List<String> nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        this.virtualNodes = Math.max(1, virtualNodes);
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(new TreeSet<>(nodes)));
+        long[][] placed = new long[this.nodes.size() * this.virtualNodes][];
+        int index = 0;
+        for (int n = 0; n < this.nodes.size(); n++) {
+            long nodeHash = hash(this.nodes.get(n));
+            for (int v = 0; v < this.virtualNodes; v++) {
+                placed[index++] = new long[]{mix(nodeHash + v * GOLDEN_GAMMA), n};
+            }
+        }
+        Arrays.sort(placed, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        points = new long[placed.length];
+        owners = new String[placed.length];
+        for (int i = 0; i < placed.length; i++) {
+            points[i] = placed[i][0];
+            owners[i] = this.nodes.get((int) placed[i][1]);
+        }
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    /**
+     * Node owning the key, the first one clockwise from its hash, or null when the ring has no node.
+     */
+    public String owner(int key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(points, mix(key * GOLDEN_GAMMA));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    public ConsistentHashRing with(String node) {
+        if (nodes.contains(node)) {
+            return this;
+        }
+        List<String> joined = new ArrayList<>(nodes);
+        joined.add(node);
+        return new ConsistentHashRing(joined, virtualNodes);
+    }
+
+    public ConsistentHashRing without(String node) {
+        if (!nodes.contains(node)) {
+            return this;
+        }
+        List<String> remaining = new ArrayList<>(nodes);
+        remaining.remove(node);
+        return new ConsistentHashRing(remaining, virtualNodes);
+    }
+
+    // FNV-1a, then mixed: String.hashCode spreads similar node URLs poorly
+    private static long hash(String node) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : node.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // finalizer of MurmurHash3
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
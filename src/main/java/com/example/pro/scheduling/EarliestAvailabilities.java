@@ -0,0 +1,78 @@
+package com.example.pro.scheduling;
+
+import com.example.pro.entity.Availability;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * K-way merge of per-practitioner calendars, each sorted by start date, returning the earliest availabilities of a
+ * window across all of them.
+ * <p>
+ * Each calendar is entered with a binary search on the window start and only its head sits in the heap, so the cost is
+ * O(k log n) to position the k calendars plus O(limit log k) to pop the result, whatever the length of the calendars.
+ */
+public final class EarliestAvailabilities {
+
+    private EarliestAvailabilities() {
+    }
+
+    public static List<Availability> top(Collection<List<Availability>> sortedCalendars, LocalDateTime from, LocalDateTime to, int limit) {
+        PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, sortedCalendars.size()), Comparator
+                .comparing((Head head) -> head.current().getStartDate())
+                .thenComparing(head -> head.current().getPractitionerId()));
+        for (List<Availability> calendar : sortedCalendars) {
+            Head head = new Head(calendar, firstStartingFrom(calendar, from));
+            if (head.isIn(to)) {
+                heads.add(head);
+            }
+        }
+
+        List<Availability> earliest = new ArrayList<>(Math.min(limit, 64));
+        while (earliest.size() < limit && !heads.isEmpty()) {
+            Head head = heads.poll();
+            earliest.add(head.current());
+            head.index++;
+            if (head.isIn(to)) {
+                heads.add(head);
+            }
+        }
+        return earliest;
+    }
+
+    private static int firstStartingFrom(List<Availability> calendar, LocalDateTime from) {
+        int low = 0;
+        int high = calendar.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (calendar.get(middle).getStartDate().isBefore(from)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static final class Head {
+        private final List<Availability> calendar;
+        private int index;
+
+        private Head(List<Availability> calendar, int index) {
+            this.calendar = calendar;
+            this.index = index;
+        }
+
+        private Availability current() {
+            return calendar.get(index);
+        }
+
+        private boolean isIn(LocalDateTime to) {
+            return index < calendar.size() && current().getStartDate().isBefore(to);
+        }
+    }
+}
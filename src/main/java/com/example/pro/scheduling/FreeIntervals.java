@@ -0,0 +1,34 @@
+package com.example.pro.scheduling;
+
+import com.example.pro.entity.Availability;
+import com.example.pro.entity.FreeInterval;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Expands stored {@link FreeInterval}s back into the availabilities they were merged from.
+ */
+public final class FreeIntervals {
+
+    private FreeIntervals() {
+    }
+
+    /**
+     * Availabilities of {@code slotMinutes} laid from the start of each interval, the last one cut at its end. They
+     * carry the id of their interval, which keeps (startDate, id) unique and ordered for keyset pagination.
+     */
+    public static List<Availability> toAvailabilities(List<FreeInterval> intervals, int slotMinutes) {
+        List<Availability> availabilities = new ArrayList<>();
+        for (FreeInterval interval : intervals) {
+            LocalDateTime endDate = interval.getEndDate();
+            for (LocalDateTime start = interval.getStartDate(); start.isBefore(endDate); start = start.plusMinutes(slotMinutes)) {
+                LocalDateTime end = start.plusMinutes(slotMinutes);
+                availabilities.add(Availability.builder().id(interval.getId()).practitionerId(interval.getPractitionerId())
+                        .startDate(start).endDate(end.isAfter(endDate) ? endDate : end).build());
+            }
+        }
+        return availabilities;
+    }
+}
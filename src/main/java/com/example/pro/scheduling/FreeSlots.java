@@ -0,0 +1,91 @@
+package com.example.pro.scheduling;
+
+import com.example.pro.entity.Availability;
+import com.example.pro.entity.FreeInterval;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Free slots of a practitioner stored as (start, end) minute offsets from an origin, two ints per slot.
+ * {@link Availability} objects are only created when {@link #toAvailabilities()} is called.
+ */
+public final class FreeSlots {
+    private final Integer practitionerId;
+    private final LocalDateTime origin;
+    private int[] bounds;
+    private int size;
+
+    FreeSlots(Integer practitionerId, LocalDateTime origin, int expectedSize) {
+        this.practitionerId = practitionerId;
+        this.origin = origin;
+        this.bounds = new int[Math.max(2, expectedSize * 2)];
+    }
+
+    void add(int startMinute, int endMinute) {
+        if (size * 2 == bounds.length) {
+            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        }
+        bounds[size * 2] = startMinute;
+        bounds[size * 2 + 1] = endMinute;
+        size++;
+    }
+
+    public Integer getPractitionerId() {
+        return practitionerId;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    int startMinute(int index) {
+        return bounds[index * 2];
+    }
+
+    int endMinute(int index) {
+        return bounds[index * 2 + 1];
+    }
+
+    public LocalDateTime startDate(int index) {
+        return origin.plusMinutes(bounds[index * 2]);
+    }
+
+    public LocalDateTime endDate(int index) {
+        return origin.plusMinutes(bounds[index * 2 + 1]);
+    }
+
+    public Availability toAvailability(int index) {
+        return Availability.builder().practitionerId(practitionerId).startDate(startDate(index)).endDate(endDate(index)).build();
+    }
+
+    public FreeInterval toFreeInterval(int index) {
+        return FreeInterval.builder().practitionerId(practitionerId).startDate(startDate(index)).endDate(endDate(index)).build();
+    }
+
+    /**
+     * The slots with every run of contiguous ones merged into a single interval. Slots of a run are laid on the grid
+     * from its start and only its last one can be shorter, so {@link FreeIntervals#toAvailabilities} gives them back.
+     */
+    public FreeSlots merged() {
+        FreeSlots merged = new FreeSlots(practitionerId, origin, 0);
+        for (int i = 0; i < size; i++) {
+            if (merged.size > 0 && merged.bounds[merged.size * 2 - 1] == bounds[i * 2]) {
+                merged.bounds[merged.size * 2 - 1] = bounds[i * 2 + 1];
+            } else {
+                merged.add(bounds[i * 2], bounds[i * 2 + 1]);
+            }
+        }
+        return merged;
+    }
+
+    public List<Availability> toAvailabilities() {
+        List<Availability> availabilities = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            availabilities.add(toAvailability(i));
+        }
+        return availabilities;
+    }
+}
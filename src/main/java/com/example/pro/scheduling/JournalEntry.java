@@ -0,0 +1,30 @@
+package com.example.pro.scheduling;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * One change recorded by the {@link SchedulingJournal}: what changed in the calendar of a practitioner and over which
+ * window. Calendar entries have no window, the whole calendar is concerned.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class JournalEntry {
+
+    public enum Type {
+        APPOINTMENT,
+        TIME_SLOT,
+        CALENDAR
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final Integer practitionerId;
+    private final Integer entityId;
+    private final LocalDateTime startDate;
+    private final LocalDateTime endDate;
+}
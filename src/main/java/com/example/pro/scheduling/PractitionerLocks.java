@@ -0,0 +1,72 @@
+package com.example.pro.scheduling;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped locks serializing the calendar writes of a practitioner.
+ * <p>
+ * Practitioners are hashed onto a fixed number of stripes: writes for the same practitioner never interleave while
+ * writes for different practitioners only contend when they share a stripe. Several practitioners are locked together
+ * by taking their stripes in ascending order, so that writers of overlapping sets cannot deadlock.
+ */
+@Component
+public class PractitionerLocks {
+
+    private final ReentrantLock[] stripes;
+
+    public PractitionerLocks(@Value("${pro.booking.lock-stripes:64}") int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T withLock(Integer practitionerId, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripe(practitionerId)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the action holding the stripes of all the given practitioners. Each distinct stripe is taken once, in
+     * ascending order, and writers of practitioners on other stripes carry on meanwhile.
+     */
+    public <T> T withLocks(Collection<Integer> practitionerIds, Supplier<T> action) {
+        int[] locked = practitionerIds.stream().mapToInt(this::stripe).distinct().sorted().toArray();
+        int held = 0;
+        try {
+            for (; held < locked.length; held++) {
+                stripes[locked[held]].lock();
+            }
+            return action.get();
+        } finally {
+            while (held > 0) {
+                stripes[locked[--held]].unlock();
+            }
+        }
+    }
+
+    /**
+     * Orders practitioners by stripe, so that consecutive practitioners of the order share as few stripes as possible.
+     */
+    public Comparator<Integer> stripeOrder() {
+        return Comparator.comparingInt(this::stripe).thenComparing(Comparator.naturalOrder());
+    }
+
+    private int stripe(Integer practitionerId) {
+        int hash = practitionerId.hashCode();
+        hash ^= hash >>> 16;
+        return hash & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.pro.scheduling;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Assignment of the practitioners to the nodes of {@code pro.partition.nodes}, this node being
+ * {@code pro.partition.self}, through a {@link ConsistentHashRing}. Partitioning is disabled, and every practitioner
+ * local, while no self URL is set.
+ * <p>
+ * The owner of a practitioner serves its calendar reads and bookings, so that its caches and booking locks are the
+ * only ones in use for it; the nodes share one database.
+ */
+@Component
+public class PractitionerPartitions {
+
+    private final String self;
+    private volatile ConsistentHashRing ring;
+
+    public PractitionerPartitions(@Value("${pro.partition.self:}") String self,
+                                  @Value("${pro.partition.nodes:}") String nodes,
+                                  @Value("${pro.partition.virtual-nodes:128}") int virtualNodes) {
+        this.self = self.isBlank() ? null : normalize(self);
+        List<String> members = Arrays.stream(nodes.split(",")).filter(node -> !node.isBlank())
+                .map(PractitionerPartitions::normalize).collect(Collectors.toList());
+        if (this.self != null && !members.contains(this.self)) {
+            members.add(this.self);
+        }
+        this.ring = new ConsistentHashRing(members, virtualNodes);
+    }
+
+    public boolean isEnabled() {
+        return self != null;
+    }
+
+    public String getSelf() {
+        return self;
+    }
+
+    public ConsistentHashRing getRing() {
+        return ring;
+    }
+
+    /**
+     * Base URL of the node owning the practitioner, this node while partitioning is disabled.
+     */
+    public String ownerOf(Integer practitionerId) {
+        return isEnabled() ? ring.owner(practitionerId) : self;
+    }
+
+    public boolean isLocal(Integer practitionerId) {
+        return !isEnabled() || self.equals(ring.owner(practitionerId));
+    }
+
+    /**
+     * Replaces the ring with the updated one and returns the previous ring.
+     */
+    public synchronized ConsistentHashRing update(UnaryOperator<ConsistentHashRing> change) {
+        ConsistentHashRing previous = ring;
+        ring = change.apply(previous);
+        return previous;
+    }
+
+    public static String normalize(String node) {
+        String trimmed = node.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+}
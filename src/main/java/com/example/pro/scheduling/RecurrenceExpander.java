@@ -0,0 +1,66 @@
+package com.example.pro.scheduling;
+
+import com.example.pro.entity.ScheduleRule;
+import com.example.pro.entity.TimeSlot;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Expands recurring schedule rules into transient time slots, only for the requested window, so that a weekly
+ * schedule is stored as one row whatever the span of the calendar.
+ */
+public final class RecurrenceExpander {
+
+    private RecurrenceExpander() {
+    }
+
+    /**
+     * Occurrences of the rules overlapping or touching the [from, to] window, sorted by start date. Occurrences are
+     * not clipped to the window.
+     */
+    public static List<TimeSlot> expand(Collection<ScheduleRule> rules, LocalDateTime from, LocalDateTime to) {
+        List<TimeSlot> occurrences = new ArrayList<>();
+        if (from.isAfter(to)) {
+            return occurrences;
+        }
+        for (ScheduleRule rule : rules) {
+            expand(rule, from, to, occurrences);
+        }
+        occurrences.sort(Comparator.comparing(TimeSlot::getStartDate));
+        return occurrences;
+    }
+
+    private static void expand(ScheduleRule rule, LocalDateTime from, LocalDateTime to, List<TimeSlot> occurrences) {
+        boolean overnight = !rule.getEndTime().isAfter(rule.getStartTime());
+        // an overnight occurrence started the day before can still reach the window
+        LocalDate first = from.toLocalDate().minusDays(overnight ? 1 : 0);
+        if (first.isBefore(rule.getValidFrom())) {
+            first = rule.getValidFrom();
+        }
+        LocalDate last = to.toLocalDate();
+        if (rule.getValidUntil() != null && rule.getValidUntil().isBefore(last)) {
+            last = rule.getValidUntil();
+        }
+        LocalDate firstWeek = rule.getValidFrom().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        int interval = Math.max(1, rule.getIntervalWeeks());
+        for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+            if (!rule.getDaysOfWeek().contains(day.getDayOfWeek()) || rule.getExceptionDates().contains(day)
+                    || ChronoUnit.WEEKS.between(firstWeek, day) % interval != 0) {
+                continue;
+            }
+            LocalDateTime startDate = day.atTime(rule.getStartTime());
+            LocalDateTime endDate = (overnight ? day.plusDays(1) : day).atTime(rule.getEndTime());
+            if (!startDate.isAfter(to) && !endDate.isBefore(from)) {
+                occurrences.add(TimeSlot.builder().practitionerId(rule.getPractitionerId()).startDate(startDate).endDate(endDate).build());
+            }
+        }
+    }
+}
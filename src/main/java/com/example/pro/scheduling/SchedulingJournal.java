@@ -0,0 +1,291 @@
+package com.example.pro.scheduling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the calendar changes, written to memory-mapped segment files of fixed-size records under
+ * {@code pro.journal.directory}. The journal is disabled, and every call a no-op, while no directory is set.
+ * <p>
+ * Entries are appended inside the writing transaction, before it commits: a change that is rolled back leaves an
+ * entry behind, which only costs a needless regeneration on replay, while a committed change always has its entry.
+ * Entries of transactions still running are tracked, so {@link #replayFrom()} never skips a change a snapshot taken
+ * meanwhile could have missed.
+ * <p>
+ * Records are checksummed, a torn record at the end of the last segment ends the journal on reopening. Mapped pages
+ * reach the disk with the operating system, {@code pro.journal.force} forces every append for power-loss durability.
+ */
+@Component
+public class SchedulingJournal {
+
+    static final int RECORD_SIZE = 40;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Logger log = LoggerFactory.getLogger(SchedulingJournal.class);
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final boolean force;
+    private final ConcurrentSkipListSet<Long> pending = new ConcurrentSkipListSet<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentFirstSequence;
+    private long nextSequence = 1;
+
+    public SchedulingJournal(@Value("${pro.journal.directory:}") String directory,
+                             @Value("${pro.journal.segment-records:1048576}") int segmentRecords,
+                             @Value("${pro.journal.force:false}") boolean force) {
+        this.directory = directory.isBlank() ? null : Paths.get(directory);
+        this.segmentRecords = segmentRecords;
+        this.force = force;
+        if (this.directory != null) {
+            try {
+                Files.createDirectories(this.directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            List<Long> firstSequences = segments();
+            open(firstSequences.isEmpty() ? 1 : firstSequences.get(firstSequences.size() - 1));
+        }
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public void appointmentChanged(Integer practitionerId, Integer appointmentId, LocalDateTime startDate, LocalDateTime endDate) {
+        append(JournalEntry.Type.APPOINTMENT, practitionerId, appointmentId, startDate, endDate);
+    }
+
+    public void timeSlotChanged(Integer practitionerId, Integer timeSlotId, LocalDateTime startDate, LocalDateTime endDate) {
+        append(JournalEntry.Type.TIME_SLOT, practitionerId, timeSlotId, startDate, endDate);
+    }
+
+    public void calendarChanged(Integer practitionerId) {
+        append(JournalEntry.Type.CALENDAR, practitionerId, null, null, null);
+    }
+
+    /**
+     * First sequence a replay must start from: the oldest entry of a running transaction, else the next entry.
+     */
+    public long replayFrom() {
+        synchronized (this) {
+            Long oldestPending = pending.isEmpty() ? null : pending.first();
+            return oldestPending == null ? nextSequence : oldestPending;
+        }
+    }
+
+    /**
+     * Oldest entry still held: entries before it were truncated and cannot be replayed.
+     */
+    public long firstSequence() {
+        if (!isEnabled()) {
+            return nextSequence;
+        }
+        synchronized (this) {
+            List<Long> firstSequences = segments();
+            return firstSequences.isEmpty() ? nextSequence : firstSequences.get(0);
+        }
+    }
+
+    /**
+     * Entries from the given sequence on, in order.
+     */
+    public List<JournalEntry> readFrom(long sequence) {
+        List<JournalEntry> entries = new ArrayList<>();
+        if (!isEnabled()) {
+            return entries;
+        }
+        synchronized (this) {
+            List<Long> firstSequences = segments();
+            for (int i = 0; i < firstSequences.size(); i++) {
+                long first = firstSequences.get(i);
+                if (i + 1 < firstSequences.size() && firstSequences.get(i + 1) <= sequence) {
+                    continue;
+                }
+                ByteBuffer buffer = first == segmentFirstSequence ? segment.duplicate() : map(first, FileChannel.MapMode.READ_ONLY);
+                for (long expected = first; ; expected++) {
+                    JournalEntry entry = read(buffer, (int) (expected - first), expected);
+                    if (entry == null) {
+                        break;
+                    }
+                    if (expected >= sequence) {
+                        entries.add(entry);
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Deletes the segments only holding entries before the given sequence, the current segment is always kept.
+     */
+    public void truncateBefore(long sequence) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (this) {
+            List<Long> firstSequences = segments();
+            for (int i = 0; i + 1 < firstSequences.size() && firstSequences.get(i + 1) <= sequence; i++) {
+                try {
+                    Files.deleteIfExists(segmentPath(firstSequences.get(i)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    private void append(JournalEntry.Type type, Integer practitionerId, Integer entityId, LocalDateTime startDate, LocalDateTime endDate) {
+        if (!isEnabled()) {
+            return;
+        }
+        long sequence;
+        synchronized (this) {
+            if (nextSequence - segmentFirstSequence == segmentRecords) {
+                roll();
+            }
+            sequence = nextSequence++;
+            int position = (int) (sequence - segmentFirstSequence) * RECORD_SIZE;
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            record.put(4, (byte) (type.ordinal() + 1))
+                    .putLong(8, sequence)
+                    .putInt(16, practitionerId == null ? 0 : practitionerId)
+                    .putInt(20, entityId == null ? 0 : entityId)
+                    .putLong(24, startDate == null ? 0 : startDate.toEpochSecond(ZoneOffset.UTC))
+                    .putLong(32, endDate == null ? 0 : endDate.toEpochSecond(ZoneOffset.UTC));
+            record.putInt(0, checksum(record));
+            ByteBuffer target = segment.duplicate();
+            target.position(position);
+            target.put(record.array());
+            if (force) {
+                segment.force();
+            }
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                pending.add(sequence);
+            }
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    pending.remove(sequence);
+                }
+            });
+        }
+    }
+
+    private void open(long firstSequence) {
+        try {
+            segmentFirstSequence = firstSequence;
+            channel = FileChannel.open(segmentPath(segmentFirstSequence), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) segmentRecords * RECORD_SIZE);
+            nextSequence = segmentFirstSequence;
+            while (nextSequence - segmentFirstSequence < segmentRecords
+                    && read(segment, (int) (nextSequence - segmentFirstSequence), nextSequence) != null) {
+                nextSequence++;
+            }
+            log.info("Scheduling journal opened in {}, next entry {}", directory, nextSequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void roll() {
+        close();
+        open(nextSequence);
+    }
+
+    private MappedByteBuffer map(long firstSequence, FileChannel.MapMode mode) {
+        try (FileChannel file = FileChannel.open(segmentPath(firstSequence), StandardOpenOption.READ)) {
+            return file.map(mode, 0, Math.min(file.size(), (long) segmentRecords * RECORD_SIZE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static JournalEntry read(ByteBuffer buffer, int index, long expectedSequence) {
+        int position = index * RECORD_SIZE;
+        if (position + RECORD_SIZE > buffer.limit()) {
+            return null;
+        }
+        byte[] bytes = new byte[RECORD_SIZE];
+        ByteBuffer source = buffer.duplicate();
+        source.position(position);
+        source.get(bytes);
+        ByteBuffer record = ByteBuffer.wrap(bytes);
+        int type = record.get(4);
+        if (type < 1 || type > JournalEntry.Type.values().length || record.getLong(8) != expectedSequence
+                || record.getInt(0) != checksum(record)) {
+            return null;
+        }
+        return new JournalEntry(expectedSequence, JournalEntry.Type.values()[type - 1], record.getInt(16),
+                record.getInt(20) == 0 ? null : record.getInt(20),
+                record.getLong(24) == 0 ? null : LocalDateTime.ofEpochSecond(record.getLong(24), 0, ZoneOffset.UTC),
+                record.getLong(32) == 0 ? null : LocalDateTime.ofEpochSecond(record.getLong(32), 0, ZoneOffset.UTC));
+    }
+
+    private static int checksum(ByteBuffer record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 4, RECORD_SIZE - 4);
+        return (int) crc.getValue();
+    }
+
+    private List<Long> segments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (channel != null) {
+            segment.force();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            channel = null;
+        }
+    }
+}
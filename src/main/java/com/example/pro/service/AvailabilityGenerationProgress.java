@@ -0,0 +1,86 @@
+package com.example.pro.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of a bulk availability generation, updated concurrently by the workers and exposed as the job status.
+ */
+public class AvailabilityGenerationProgress {
+    private final int totalPractitioners;
+    private final Instant startedAt = Instant.now();
+    private final AtomicInteger processedPractitioners = new AtomicInteger();
+    private final AtomicLong generatedAvailabilities = new AtomicLong();
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    public AvailabilityGenerationProgress(int totalPractitioners) {
+        this.totalPractitioners = totalPractitioners;
+    }
+
+    void partitionDone(int practitioners, long availabilities) {
+        processedPractitioners.addAndGet(practitioners);
+        generatedAvailabilities.addAndGet(availabilities);
+    }
+
+    void finish(Throwable failure) {
+        if (failure != null) {
+            error = failure.toString();
+        }
+        finishedAt = Instant.now();
+    }
+
+    public int getTotalPractitioners() {
+        return totalPractitioners;
+    }
+
+    public int getProcessedPractitioners() {
+        return processedPractitioners.get();
+    }
+
+    public long getGeneratedAvailabilities() {
+        return generatedAvailabilities.get();
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isRunning() {
+        return finishedAt == null;
+    }
+
+    public long getElapsedMillis() {
+        return Duration.between(startedAt, finishedAt == null ? Instant.now() : finishedAt).toMillis();
+    }
+
+    public double getPractitionersPerSecond() {
+        return perSecond(getProcessedPractitioners());
+    }
+
+    public double getAvailabilitiesPerSecond() {
+        return perSecond(getGeneratedAvailabilities());
+    }
+
+    private double perSecond(long count) {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0 : count * 1000d / elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d practitioners, %d availabilities in %d ms (%.1f practitioners/s, %.1f availabilities/s)",
+                getProcessedPractitioners(), totalPractitioners, getGeneratedAvailabilities(), getElapsedMillis(),
+                getPractitionersPerSecond(), getAvailabilitiesPerSecond());
+    }
+}
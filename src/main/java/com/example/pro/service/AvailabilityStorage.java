@@ -0,0 +1,16 @@
+package com.example.pro.service;
+
+/**
+ * How generated availabilities are persisted, chosen with {@code pro.availability.storage}.
+ */
+public enum AvailabilityStorage {
+    /**
+     * One {@link com.example.pro.entity.Availability} row per slot.
+     */
+    SLOTS,
+    /**
+     * One {@link com.example.pro.entity.FreeInterval} row per run of contiguous slots, expanded into slots on read.
+     * A booking shrinks or splits the interval it falls into.
+     */
+    INTERVALS
+}
@@ -0,0 +1,87 @@
+package com.example.pro.service;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A bounded, keyset-paginated read of a practitioner calendar.
+ * <p>
+ * Rows are ordered by (startDate, id) and only those starting in [from, to) are returned. A page resumes right
+ * after the (afterStartDate, afterId) row of the previous page, so reading deep pages costs no more than the first.
+ * Missing bounds default to the whole calendar.
+ */
+@Getter
+@Builder
+public class CalendarWindow {
+    public static final int DEFAULT_SIZE = 200;
+    public static final int MAX_SIZE = 1000;
+
+    private static final LocalDateTime MIN_DATE = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_DATE = LocalDateTime.of(9999, 12, 31, 23, 59);
+
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final LocalDateTime afterStartDate;
+    private final Integer afterId;
+    private final Integer size;
+
+    /**
+     * Start date to seek from: the cursor when it is inside the window, else the lower bound.
+     */
+    public LocalDateTime seekStartDate() {
+        LocalDateTime lowerBound = from == null ? MIN_DATE : from;
+        return afterStartDate == null || afterStartDate.isBefore(lowerBound) ? lowerBound : afterStartDate;
+    }
+
+    /**
+     * Id to seek from, rows starting at {@link #seekStartDate()} are returned only when their id is greater.
+     */
+    public Integer seekId() {
+        return afterStartDate == null || !afterStartDate.equals(seekStartDate()) || afterId == null ? Integer.MIN_VALUE : afterId;
+    }
+
+    public LocalDateTime upperBound() {
+        return to == null ? MAX_DATE : to;
+    }
+
+    public int pageSize() {
+        return size == null || size <= 0 ? DEFAULT_SIZE : Math.min(size, MAX_SIZE);
+    }
+
+    public Pageable pageable() {
+        return PageRequest.of(0, pageSize());
+    }
+
+    /**
+     * Applies the window to rows already sorted by (startDate, id), seeking the cursor with a binary search.
+     */
+    public <T> List<T> slice(List<T> sorted, Function<T, LocalDateTime> startDate, Function<T, Integer> id) {
+        LocalDateTime seekStartDate = seekStartDate();
+        int seekId = seekId();
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            T row = sorted.get(middle);
+            int comparison = startDate.apply(row).compareTo(seekStartDate);
+            if (comparison < 0 || comparison == 0 && id.apply(row) <= seekId) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        LocalDateTime upperBound = upperBound();
+        int end = low;
+        while (end < sorted.size() && end - low < pageSize() && startDate.apply(sorted.get(end)).isBefore(upperBound)) {
+            end++;
+        }
+        return new ArrayList<>(sorted.subList(low, end));
+    }
+}
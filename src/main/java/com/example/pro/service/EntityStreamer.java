@@ -0,0 +1,31 @@
+package com.example.pro.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Runs a JPA stream query in a read-only transaction and hands each entity to a consumer, detaching it right after
+ * so the persistence context, and the heap, stay constant whatever the number of rows.
+ */
+@Component
+public class EntityStreamer {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public <T> void forEach(Supplier<Stream<T>> query, Consumer<T> action) {
+        try (Stream<T> stream = query.get()) {
+            stream.forEach(entity -> {
+                action.accept(entity);
+                entityManager.detach(entity);
+            });
+        }
+    }
+}
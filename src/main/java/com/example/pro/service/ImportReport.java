@@ -0,0 +1,61 @@
+package com.example.pro.service;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import: counts, the first rejected rows and the write throughput.
+ */
+@Getter
+public class ImportReport {
+    static final int MAX_ERRORS = 100;
+
+    private final ImportType type;
+    private long readRows;
+    private long importedRows;
+    private long rejectedRows;
+    private final List<String> errors = new ArrayList<>();
+    private int regeneratedPractitioners;
+    private long generatedAvailabilities;
+    private long elapsedMillis;
+
+    ImportReport(ImportType type) {
+        this.type = type;
+    }
+
+    void read() {
+        readRows++;
+    }
+
+    void imported(int rows) {
+        importedRows += rows;
+    }
+
+    void reject(long line, String error) {
+        rejectedRows++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add("line " + line + ": " + error);
+        }
+    }
+
+    void regenerated(int practitioners, long availabilities) {
+        regeneratedPractitioners = practitioners;
+        generatedAvailabilities = availabilities;
+    }
+
+    void finish(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? importedRows : importedRows * 1000d / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d rows read, %d imported, %d rejected, %d practitioners regenerated in %d ms (%.0f rows/s)",
+                type, readRows, importedRows, rejectedRows, regeneratedPractitioners, elapsedMillis, getRowsPerSecond());
+    }
+}
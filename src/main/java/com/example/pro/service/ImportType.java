@@ -0,0 +1,186 @@
+package com.example.pro.service;
+
+import com.example.pro.entity.Appointment;
+import com.example.pro.entity.Patient;
+import com.example.pro.entity.Practitioner;
+import com.example.pro.entity.TimeSlot;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Entities accepted by the bulk import, with their validation and the JDBC insert they are written with.
+ * Ids are always drawn from the sequence of the entities, an id given in the input is ignored.
+ */
+public enum ImportType {
+    PRACTITIONERS("practitioners", Practitioner.class,
+            "insert into practitioner (id, first_name, last_name, speciality) values (%s, ?, ?, ?)") {
+        @Override
+        String validate(Object row, Set<Integer> practitionerIds, Bookings bookings) {
+            Practitioner practitioner = (Practitioner) row;
+            return isBlank(practitioner.getFirstName()) || isBlank(practitioner.getLastName())
+                    ? "a practitioner needs a first name and a last name" : null;
+        }
+
+        @Override
+        void bind(PreparedStatement statement, Object row) throws SQLException {
+            Practitioner practitioner = (Practitioner) row;
+            statement.setString(1, practitioner.getFirstName());
+            statement.setString(2, practitioner.getLastName());
+            statement.setString(3, practitioner.getSpeciality());
+        }
+    },
+    PATIENTS("patients", Patient.class,
+            "insert into patient (id, first_name, last_name, birth_date) values (%s, ?, ?, ?)") {
+        @Override
+        String validate(Object row, Set<Integer> practitionerIds, Bookings bookings) {
+            Patient patient = (Patient) row;
+            return isBlank(patient.getFirstName()) || isBlank(patient.getLastName())
+                    ? "a patient needs a first name and a last name" : null;
+        }
+
+        @Override
+        void bind(PreparedStatement statement, Object row) throws SQLException {
+            Patient patient = (Patient) row;
+            statement.setString(1, patient.getFirstName());
+            statement.setString(2, patient.getLastName());
+            if (patient.getBirthDate() == null) {
+                statement.setNull(3, Types.DATE);
+            } else {
+                statement.setDate(3, Date.valueOf(patient.getBirthDate()));
+            }
+        }
+    },
+    TIME_SLOTS("time-slots", TimeSlot.class,
+            "insert into time_slot (id, practitioner_id, start_date, end_date) values (%s, ?, ?, ?)") {
+        @Override
+        String validate(Object row, Set<Integer> practitionerIds, Bookings bookings) {
+            TimeSlot timeSlot = (TimeSlot) row;
+            return validatePeriod(timeSlot.getPractitionerId(), timeSlot.getStartDate(), timeSlot.getEndDate(), practitionerIds);
+        }
+
+        @Override
+        void bind(PreparedStatement statement, Object row) throws SQLException {
+            TimeSlot timeSlot = (TimeSlot) row;
+            statement.setInt(1, timeSlot.getPractitionerId());
+            statement.setTimestamp(2, Timestamp.valueOf(timeSlot.getStartDate()));
+            statement.setTimestamp(3, Timestamp.valueOf(timeSlot.getEndDate()));
+        }
+
+        @Override
+        Integer practitionerId(Object row) {
+            return ((TimeSlot) row).getPractitionerId();
+        }
+    },
+    APPOINTMENTS("appointments", Appointment.class,
+            "insert into appointment (id, practitioner_id, patient_id, start_date, end_date) values (%s, ?, ?, ?, ?)") {
+        @Override
+        String validate(Object row, Set<Integer> practitionerIds, Bookings bookings) {
+            Appointment appointment = (Appointment) row;
+            if (appointment.getPatientId() == null) {
+                return "an appointment needs a patient";
+            }
+            String error = validatePeriod(appointment.getPractitionerId(), appointment.getStartDate(), appointment.getEndDate(), practitionerIds);
+            if (error != null) {
+                return error;
+            }
+            return bookings.reserve(appointment.getPractitionerId(), appointment.getStartDate(), appointment.getEndDate())
+                    ? null : OVERLAPPING_APPOINTMENT;
+        }
+
+        @Override
+        void bind(PreparedStatement statement, Object row) throws SQLException {
+            Appointment appointment = (Appointment) row;
+            statement.setInt(1, appointment.getPractitionerId());
+            statement.setInt(2, appointment.getPatientId());
+            statement.setTimestamp(3, Timestamp.valueOf(appointment.getStartDate()));
+            statement.setTimestamp(4, Timestamp.valueOf(appointment.getEndDate()));
+        }
+
+        @Override
+        Integer practitionerId(Object row) {
+            return ((Appointment) row).getPractitionerId();
+        }
+    };
+
+    static final String ID_SEQUENCE = "hibernate_sequence";
+    static final String OVERLAPPING_APPOINTMENT = "the practitioner already has an appointment overlapping this period";
+
+    /**
+     * Periods already booked, which an imported appointment must not overlap.
+     */
+    interface Bookings {
+        /**
+         * Reserves [startDate, endDate) for the practitioner, or returns false when an appointment overlaps it.
+         */
+        boolean reserve(Integer practitionerId, LocalDateTime startDate, LocalDateTime endDate);
+    }
+
+    private final String path;
+    private final Class<?> entityClass;
+    private final String insert;
+
+    ImportType(String path, Class<?> entityClass, String insert) {
+        this.path = path;
+        this.entityClass = entityClass;
+        this.insert = insert;
+    }
+
+    public static ImportType fromPath(String path) {
+        for (ImportType type : values()) {
+            if (type.path.equals(path)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    /**
+     * Insert statement of a row, its id given by the SQL expression drawing the next value of the sequence.
+     */
+    String getInsert(String nextId) {
+        return String.format(insert, nextId);
+    }
+
+    /**
+     * Returns why the row cannot be imported, or null when it is valid. A valid appointment reserves its period in
+     * {@code bookings}.
+     */
+    abstract String validate(Object row, Set<Integer> practitionerIds, Bookings bookings);
+
+    abstract void bind(PreparedStatement statement, Object row) throws SQLException;
+
+    /**
+     * Practitioner whose availabilities depend on the row, or null.
+     */
+    Integer practitionerId(Object row) {
+        return null;
+    }
+
+    boolean touchesCalendars() {
+        return this == TIME_SLOTS || this == APPOINTMENTS;
+    }
+
+    private static String validatePeriod(Integer practitionerId, LocalDateTime startDate, LocalDateTime endDate, Set<Integer> practitionerIds) {
+        if (practitionerId == null || !practitionerIds.contains(practitionerId)) {
+            return "unknown practitioner " + practitionerId;
+        }
+        if (startDate == null || endDate == null || !startDate.isBefore(endDate)) {
+            return "a start date before the end date is required";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.pro.service;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Membership of the ring as seen by this node and the share of the practitioners it owns.
+ */
+@Getter
+@Builder
+public class PartitionStatus {
+    private final boolean enabled;
+    private final String self;
+    private final List<String> nodes;
+    private final int practitioners;
+    private final int ownedPractitioners;
+    /**
+     * Practitioners that moved to or from this node with the last membership change, whose cached calendars were
+     * dropped.
+     */
+    private final int movedPractitioners;
+}
@@ -0,0 +1,544 @@
+package com.example.pro.service;
+
+import com.example.pro.entity.Patient;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory search index of the patients on their names and birth date.
+ * <p>
+ * Names are folded to lower case without accents and split into tokens. Every term of a query must match a token of
+ * the patient, exactly, as a prefix, or within one typo from three letters and two from eight letters; a date term
+ * ({@code 1985-03-14}, {@code 14/03/1985}) or a year term filters on the birth date. Candidates are drawn from the
+ * term matching the fewest patients only, through a sorted map of the distinct tokens for prefixes and trigram
+ * postings of the tokens for typos, then the other terms are checked against the tokens of the candidate.
+ * <p>
+ * Patients live in dense slots referenced by the postings, next to a sort key packing the start of their last name so
+ * that ranking the many candidates of a short prefix seldom reads the patients themselves. A patient written again
+ * takes a new slot and its old one is emptied, so postings never shrink until the index is reloaded, which
+ * {@link #invalidate()} asks for after bulk writes.
+ */
+@Component
+public class PatientIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern YEAR = Pattern.compile("\\d{4}");
+    private static final DateTimeFormatter DAY_FIRST = DateTimeFormatter.ofPattern("dd/MM/uuuu");
+    private static final Comparator<Match> BEST_FIRST = (a, b) -> {
+        if (a.score != b.score) {
+            return a.score > b.score ? -1 : 1;
+        }
+        if (a.nameKey != b.nameKey) {
+            return Long.compareUnsigned(a.nameKey, b.nameKey);
+        }
+        int byLastName = a.entry.lastName.compareTo(b.entry.lastName);
+        if (byLastName != 0) {
+            return byLastName;
+        }
+        int byFirstName = a.entry.firstName.compareTo(b.entry.firstName);
+        return byFirstName != 0 ? byFirstName : Integer.compare(a.entry.patient.getId(), b.entry.patient.getId());
+    };
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Integer> slotOf = new HashMap<>();
+    private final NavigableMap<String, Token> tokens = new TreeMap<>();
+    private final List<Token> tokenList = new ArrayList<>();
+    private final Map<String, Postings> trigrams = new HashMap<>();
+    private final Map<LocalDate, Postings> birthDates = new HashMap<>();
+    private Entry[] slots = new Entry[1024];
+    private long[] nameKeys = new long[1024];
+    private int slotCount;
+    private boolean loaded;
+
+    /**
+     * Whether the index holds the patients, else it must be {@link #load loaded} before being searched.
+     */
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the patients handed by the source. Writes wait for the end of the load and are applied
+     * after it, so none is lost to a source read before it committed.
+     */
+    public void load(Consumer<Consumer<Patient>> source) {
+        lock.writeLock().lock();
+        try {
+            slotOf.clear();
+            tokens.clear();
+            tokenList.clear();
+            trigrams.clear();
+            birthDates.clear();
+            slots = new Entry[1024];
+            nameKeys = new long[1024];
+            slotCount = 0;
+            source.accept(this::add);
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marks the index to be reloaded before the next search.
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Patient patient) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                clear(patient.getId());
+                add(patient);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer patientId) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                clear(patientId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotOf.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Best matches of the query, the closest first, then by last name, first name and id.
+     */
+    public List<Patient> search(String query, int limit) {
+        List<String> terms = new ArrayList<>();
+        List<LocalDate> dates = new ArrayList<>();
+        List<Integer> years = new ArrayList<>();
+        for (String term : query.trim().split("\\s+")) {
+            LocalDate date = parseDate(term);
+            if (date != null) {
+                dates.add(date);
+            } else if (YEAR.matcher(term).matches()) {
+                years.add(Integer.valueOf(term));
+            } else {
+                terms.addAll(tokenize(term));
+            }
+        }
+        if (terms.isEmpty() && dates.isEmpty() && years.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            // candidates come from the term matching the fewest patients, the other terms are checked on each of them
+            List<Map<Token, Double>> termScores = new ArrayList<>();
+            Map<Token, Double> driver = null;
+            long driverSlots = Long.MAX_VALUE;
+            for (String term : terms) {
+                Map<Token, Double> scores = matchingTokens(term);
+                long matchingSlots = 0;
+                for (Token token : scores.keySet()) {
+                    matchingSlots += token.slots.size;
+                }
+                if (matchingSlots < driverSlots) {
+                    driver = scores;
+                    driverSlots = matchingSlots;
+                }
+                termScores.add(scores);
+            }
+            termScores.remove(driver);
+            BitSet candidates = new BitSet(slotCount);
+            double[] driverScores = new double[driver == null ? 0 : slotCount];
+            if (driver != null) {
+                for (Map.Entry<Token, Double> token : driver.entrySet()) {
+                    double score = token.getValue();
+                    token.getKey().slots.forEach(slot -> {
+                        candidates.set(slot);
+                        driverScores[slot] = Math.max(driverScores[slot], score);
+                    });
+                }
+            } else if (!dates.isEmpty()) {
+                Postings postings = birthDates.get(dates.get(0));
+                if (postings != null) {
+                    postings.forEach(candidates::set);
+                }
+            } else {
+                candidates.set(0, slotCount);
+            }
+
+            // a lone term is ranked from the driver scores and sort keys, without reading the candidates
+            boolean filtered = !termScores.isEmpty() || !dates.isEmpty() || !years.isEmpty();
+            PriorityQueue<Match> best = new PriorityQueue<>(BEST_FIRST.reversed());
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                Entry entry = slots[slot];
+                if (entry == null) {
+                    continue;
+                }
+                double score = 1 + (driver == null ? 0 : driverScores[slot]);
+                if (filtered) {
+                    double rest = score(entry, termScores, dates, years);
+                    if (rest < 0) {
+                        continue;
+                    }
+                    score += rest;
+                }
+                if (best.size() == limit && (score < best.peek().score
+                        || score == best.peek().score && Long.compareUnsigned(nameKeys[slot], best.peek().nameKey) > 0)) {
+                    continue;
+                }
+                Match match = new Match(entry, nameKeys[slot], score);
+                if (best.size() < limit) {
+                    best.add(match);
+                } else if (BEST_FIRST.compare(match, best.peek()) < 0) {
+                    best.poll();
+                    best.add(match);
+                }
+            }
+            List<Match> matches = new ArrayList<>(best);
+            matches.sort(BEST_FIRST);
+            List<Patient> patients = new ArrayList<>(matches.size());
+            for (Match match : matches) {
+                patients.add(copy(match.entry.patient));
+            }
+            return patients;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tokens matching the term with their score, by prefix from the sorted tokens and within typos from the tokens
+     * sharing enough trigrams with it.
+     */
+    private Map<Token, Double> matchingTokens(String term) {
+        Map<Token, Double> scores = new HashMap<>();
+        for (Token token : tokens.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+            scores.put(token, score(term, token.text));
+        }
+        int allowed = allowedTypos(term);
+        if (allowed > 0) {
+            Set<String> grams = trigrams(term, false);
+            // a typo changes at most four trigrams of the term
+            int threshold = Math.max(1, grams.size() - 4 * allowed);
+            int[] shared = new int[tokenList.size()];
+            for (String gram : grams) {
+                Postings postings = trigrams.get(gram);
+                if (postings != null) {
+                    postings.forEach(tokenId -> {
+                        Token token = tokenList.get(tokenId);
+                        if (++shared[tokenId] == threshold && !token.text.startsWith(term)) {
+                            double score = score(term, token.text);
+                            if (score > 0) {
+                                scores.put(token, score);
+                            }
+                        }
+                    });
+                }
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Sum of the best token scores of the terms on the patient, or -1 when a term or the birth date does not match.
+     */
+    private static double score(Entry entry, List<Map<Token, Double>> termScores, List<LocalDate> dates, List<Integer> years) {
+        LocalDate birthDate = entry.patient.getBirthDate();
+        for (LocalDate date : dates) {
+            if (!date.equals(birthDate)) {
+                return -1;
+            }
+        }
+        for (Integer year : years) {
+            if (birthDate == null || birthDate.getYear() != year) {
+                return -1;
+            }
+        }
+        double total = 0;
+        for (Map<Token, Double> scores : termScores) {
+            double best = 0;
+            for (Token token : entry.tokens) {
+                Double score = scores.get(token);
+                if (score != null && score > best) {
+                    best = score;
+                }
+            }
+            if (best == 0) {
+                return -1;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private static double score(String term, String token) {
+        if (token.equals(term)) {
+            return 4;
+        }
+        if (token.startsWith(term)) {
+            return 3;
+        }
+        int allowed = allowedTypos(term);
+        if (allowed == 0) {
+            return 0;
+        }
+        int typos = distance(term, token, allowed);
+        if (typos <= allowed) {
+            return 2 - 0.5 * typos;
+        }
+        if (token.length() > term.length()) {
+            typos = distance(term, token.substring(0, term.length()), allowed);
+            if (typos <= allowed) {
+                return 1.5 - 0.5 * typos;
+            }
+        }
+        return 0;
+    }
+
+    private static int allowedTypos(String term) {
+        return term.length() < 3 ? 0 : term.length() < 8 ? 1 : 2;
+    }
+
+    /**
+     * Edit distance counting a swap of adjacent letters as one typo, or {@code bound + 1} as soon as it is known to
+     * exceed the bound.
+     */
+    private static int distance(String a, String b, int bound) {
+        if (Math.abs(a.length() - b.length()) > bound) {
+            return bound + 1;
+        }
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > bound) {
+                return bound + 1;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], bound + 1);
+    }
+
+    private void add(Patient patient) {
+        Entry entry = new Entry(copy(patient));
+        if (slotCount == slots.length) {
+            slots = Arrays.copyOf(slots, slots.length * 2);
+            nameKeys = Arrays.copyOf(nameKeys, slots.length);
+        }
+        int slot = slotCount++;
+        slots[slot] = entry;
+        nameKeys[slot] = nameKey(entry.lastName);
+        slotOf.put(patient.getId(), slot);
+        entry.tokens = new Token[entry.words.length];
+        for (int i = 0; i < entry.words.length; i++) {
+            String text = entry.words[i];
+            Token token = tokens.get(text);
+            if (token == null) {
+                token = new Token(text, tokenList.size());
+                tokens.put(text, token);
+                tokenList.add(token);
+                for (String gram : trigrams(text, true)) {
+                    trigrams.computeIfAbsent(gram, key -> new Postings()).add(token.id);
+                }
+            }
+            token.slots.add(slot);
+            entry.tokens[i] = token;
+        }
+        if (patient.getBirthDate() != null) {
+            birthDates.computeIfAbsent(patient.getBirthDate(), key -> new Postings()).add(slot);
+        }
+    }
+
+    private void clear(Integer patientId) {
+        Integer slot = slotOf.remove(patientId);
+        if (slot != null) {
+            slots[slot] = null;
+        }
+    }
+
+    /**
+     * First ten characters of the folded name, six bits each, ordered as the name: shorter names first, then spaces,
+     * digits, letters and any other character, which all share the last code and leave the order to the name itself.
+     */
+    private static long nameKey(String name) {
+        long key = 0;
+        for (int i = 0; i < 10; i++) {
+            key <<= 6;
+            if (i < name.length()) {
+                char c = name.charAt(i);
+                key |= c == ' ' ? 1 : c >= '0' && c <= '9' ? 2 + c - '0' : c >= 'a' && c <= 'z' ? 12 + c - 'a' : 63;
+            }
+        }
+        return key;
+    }
+
+    // only tokens end with a marker, so that a term matches the beginning of a longer token
+    private static Set<String> trigrams(String word, boolean ended) {
+        String padded = "$$" + word + (ended ? "$" : "");
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        for (String word : SEPARATORS.split(folded)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static LocalDate parseDate(String term) {
+        for (DateTimeFormatter format : new DateTimeFormatter[]{DateTimeFormatter.ISO_LOCAL_DATE, DAY_FIRST}) {
+            try {
+                return LocalDate.parse(term, format);
+            } catch (DateTimeParseException e) {
+                // not in this format
+            }
+        }
+        return null;
+    }
+
+    private static Patient copy(Patient patient) {
+        return Patient.builder().id(patient.getId()).firstName(patient.getFirstName()).lastName(patient.getLastName())
+                .birthDate(patient.getBirthDate()).build();
+    }
+
+    private static final class Entry {
+        private final Patient patient;
+        private final String firstName;
+        private final String lastName;
+        private final String[] words;
+        private Token[] tokens;
+
+        private Entry(Patient patient) {
+            this.patient = patient;
+            this.firstName = String.join(" ", tokenize(patient.getFirstName()));
+            this.lastName = String.join(" ", tokenize(patient.getLastName()));
+            Set<String> words = new LinkedHashSet<>(tokenize(patient.getFirstName()));
+            words.addAll(tokenize(patient.getLastName()));
+            // compound names are also found written as one word
+            for (String name : new String[]{firstName, lastName}) {
+                if (name.contains(" ")) {
+                    words.add(name.replace(" ", ""));
+                }
+            }
+            this.words = words.toArray(new String[0]);
+        }
+    }
+
+    /**
+     * Distinct name token, with the slots of the patients bearing it. Typos are looked up among the tokens through
+     * their trigrams, far fewer than the patients.
+     */
+    private static final class Token {
+        private final String text;
+        private final int id;
+        private final Postings slots = new Postings();
+
+        private Token(String text, int id) {
+            this.text = text;
+            this.id = id;
+        }
+    }
+
+    private static final class Match {
+        private final Entry entry;
+        private final long nameKey;
+        private final double score;
+
+        private Match(Entry entry, long nameKey, double score) {
+            this.entry = entry;
+            this.nameKey = nameKey;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Growable list of slots.
+     */
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int size;
+
+        private void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        private void forEach(IntConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(slots[i]);
+            }
+        }
+    }
+}
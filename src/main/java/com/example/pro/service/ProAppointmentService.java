@@ -1,17 +1,47 @@
 package com.example.pro.service;
 
 import com.example.pro.entity.Appointment;
+import com.example.pro.exception.InvalidAppointmentException;
+import com.example.pro.exception.SlotUnavailableException;
 import com.example.pro.repository.AppointmentRepository;
+import com.example.pro.scheduling.AppointmentIndex;
+import com.example.pro.scheduling.PractitionerLocks;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public class ProAppointmentService {
     @Autowired
     private AppointmentRepository appointmentRepository;
 
+    @Autowired
+    private EntityStreamer entityStreamer;
+
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private PractitionerLocks practitionerLocks;
+
+    @Autowired
+    private AppointmentIndex appointmentIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // this service behind its proxy, so that the timer of a method called from another one records it
+    @Lazy
+    @Autowired
+    private ProAppointmentService self;
+
     public Appointment find(String appointmentId) {
         return appointmentRepository.findById(appointmentId).orElseThrow();
     }
@@ -20,7 +50,69 @@ public class ProAppointmentService {
         return appointmentRepository.findAll();
     }
 
+    /**
+     * Hands every appointment to the action without ever holding them all in memory.
+     */
+    public void forEach(Consumer<Appointment> action) {
+        entityStreamer.forEach(appointmentRepository::streamAll, action);
+    }
+
+    /**
+     * Version of the calendar of the practitioner, changed by every booking or cancellation.
+     */
+    public String getCalendarVersion(Integer practitionerId) {
+        return proAvailabilityService.getCalendarVersion(practitionerId);
+    }
+
+    @Timed(value = "pro.scheduling", extraTags = {"operation", "appointment.find"}, histogram = true)
     public List<Appointment> findByPractitionerId(Integer practitionerId) {
         return appointmentRepository.findByPractitionerId(practitionerId);
     }
+
+    @Timed(value = "pro.scheduling", extraTags = {"operation", "appointment.find-window"}, histogram = true)
+    public List<Appointment> findByPractitionerId(Integer practitionerId, CalendarWindow window) {
+        return appointmentRepository.findPage(practitionerId, window.seekStartDate(), window.seekId(), window.upperBound(), window.pageable());
+    }
+
+    /**
+     * Books an appointment if the practitioner is available for its whole duration, then consumes the availabilities
+     * it covers. The check and the writes run in one transaction committed under the practitioner lock, so two
+     * concurrent bookings of the same slot cannot both succeed while other practitioners are booked in parallel.
+     */
+    @Timed(value = "pro.scheduling", extraTags = {"operation", "appointment.book"}, histogram = true)
+    public Appointment book(Appointment appointment) throws InvalidAppointmentException, SlotUnavailableException {
+        if (appointment.getPatientId() == null || appointment.getPractitionerId() == null
+                || appointment.getStartDate() == null || appointment.getEndDate() == null
+                || !appointment.getStartDate().isBefore(appointment.getEndDate())) {
+            throw new InvalidAppointmentException("An appointment needs a patient, a practitioner and a start date before its end date");
+        }
+        appointment.setId(null);
+        Appointment booked = practitionerLocks.withLock(appointment.getPractitionerId(),
+                () -> new TransactionTemplate(transactionManager).execute(status ->
+                        proAvailabilityService.isAvailable(appointment.getPractitionerId(), appointment.getStartDate(), appointment.getEndDate())
+                                ? self.save(appointment)
+                                : null));
+        if (booked == null) {
+            throw new SlotUnavailableException("Practitioner " + appointment.getPractitionerId() + " is not available from "
+                    + appointment.getStartDate() + " to " + appointment.getEndDate());
+        }
+        return booked;
+    }
+
+    @Timed(value = "pro.scheduling", extraTags = {"operation", "appointment.save"}, histogram = true)
+    @Transactional
+    public Appointment save(Appointment appointment) {
+        Appointment saved = appointmentRepository.save(appointment);
+        appointmentIndex.saved(saved);
+        proAvailabilityService.onAppointmentChanged(saved);
+        return saved;
+    }
+
+    @Timed(value = "pro.scheduling", extraTags = {"operation", "appointment.delete"}, histogram = true)
+    @Transactional
+    public void delete(Appointment appointment) {
+        appointmentRepository.delete(appointment);
+        appointmentIndex.removed(appointment);
+        proAvailabilityService.onAppointmentChanged(appointment);
+    }
 }
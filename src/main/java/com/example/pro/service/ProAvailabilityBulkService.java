@@ -0,0 +1,291 @@
+package com.example.pro.service;
+
+import com.example.pro.entity.Appointment;
+import com.example.pro.entity.ScheduleRule;
+import com.example.pro.entity.TimeSlot;
+import com.example.pro.repository.AppointmentRepository;
+import com.example.pro.repository.AvailabilityRepository;
+import com.example.pro.repository.FreeIntervalRepository;
+import com.example.pro.repository.PractitionerRepository;
+import com.example.pro.repository.ScheduleRuleRepository;
+import com.example.pro.repository.TimeSlotRepository;
+import com.example.pro.scheduling.AvailabilityCache;
+import com.example.pro.scheduling.AvailabilitySweep;
+import com.example.pro.scheduling.CalendarBitmap;
+import com.example.pro.scheduling.FreeSlots;
+import com.example.pro.scheduling.PractitionerLocks;
+import com.example.pro.scheduling.PractitionerPartitions;
+import com.example.pro.scheduling.SchedulingJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Regenerates the availabilities of every practitioner at once.
+ * <p>
+ * Practitioners are split into partitions processed by a bounded worker pool. Each partition loads its time slots,
+ * schedule rules and appointments with one query each, sweeps every practitioner, then replaces the stored
+ * availabilities with a set-based delete followed by the batch inserts of {@link AvailabilityRepository#insertAll},
+ * all in one transaction run under the {@link PractitionerLocks} of the partition, so that a booking is either read by
+ * the partition or made after it, never overwritten. Practitioners are partitioned in stripe order: a partition
+ * holds few stripes, workers seldom wait for each other and bookings of a stripe wait for one partition at most.
+ * With interval storage, the merged free intervals are written to
+ * {@link FreeIntervalRepository#insertAll} instead, and rows left over from the other storage are dropped.
+ */
+@Service
+public class ProAvailabilityBulkService {
+
+    private static final int SLOT_MINUTES = (int) AvailabilitySweep.SLOT_DURATION.toMinutes();
+
+    private final Logger log = LoggerFactory.getLogger(ProAvailabilityBulkService.class);
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private ScheduleRuleRepository scheduleRuleRepository;
+
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private AvailabilityCache availabilityCache;
+
+    @Autowired
+    private AvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private FreeIntervalRepository freeIntervalRepository;
+
+    @Autowired
+    private SchedulingJournal schedulingJournal;
+
+    @Autowired
+    private PractitionerPartitions practitionerPartitions;
+
+    @Autowired
+    private ProPartitionService proPartitionService;
+
+    @Autowired
+    private PractitionerLocks practitionerLocks;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${pro.availability.bulk.threads:4}")
+    private int threads;
+
+    @Value("${pro.availability.bulk.partition-size:200}")
+    private int partitionSize;
+
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "availability-bulk-job");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicReference<AvailabilityGenerationProgress> lastJob = new AtomicReference<>();
+
+    /**
+     * Starts a regeneration of every practitioner in the background, unless one is already running.
+     * Returns the progress of the running job.
+     */
+    public synchronized AvailabilityGenerationProgress startRegeneration() {
+        AvailabilityGenerationProgress current = lastJob.get();
+        if (current != null && current.isRunning()) {
+            return current;
+        }
+        List<Integer> practitionerIds = ownedPractitionerIds();
+        AvailabilityGenerationProgress progress = new AvailabilityGenerationProgress(practitionerIds.size());
+        lastJob.set(progress);
+        jobExecutor.submit(() -> run(practitionerIds, progress));
+        return progress;
+    }
+
+    /**
+     * Rolls the horizon over which schedule rules are expanded forward, once a day by default. Only the day that just
+     * entered the horizon is swept, for the practitioners with schedule rules, each under its booking lock.
+     */
+    @Timed(value = "pro.scheduling", extraTags = {"operation", "availability.refresh-horizon"}, histogram = true)
+    @Scheduled(cron = "${pro.availability.horizon-refresh-cron:0 0 2 * * *}")
+    public void refreshHorizon() {
+        LocalDateTime horizonEnd = proAvailabilityService.getHorizonEnd();
+        LocalDateTime openedDay = horizonEnd.minusDays(1);
+        List<Integer> practitionerIds = scheduleRuleRepository.findPractitionerIds().stream()
+                .filter(practitionerPartitions::isLocal).collect(Collectors.toList());
+        log.info("Extending the availabilities of {} practitioners with schedule rules to {}", practitionerIds.size(), horizonEnd);
+        for (Integer practitionerId : practitionerIds) {
+            practitionerLocks.withLock(practitionerId, () -> {
+                schedulingJournal.calendarChanged(practitionerId);
+                return proAvailabilityService.regenerateAvailabilities(practitionerId, openedDay, horizonEnd);
+            });
+        }
+    }
+
+    /**
+     * Progress of the last regeneration, or null when none has been started.
+     */
+    public AvailabilityGenerationProgress getProgress() {
+        return lastJob.get();
+    }
+
+    /**
+     * Regenerates the availabilities of every practitioner and waits for the end of the job.
+     */
+    @Timed(value = "pro.scheduling", extraTags = {"operation", "availability.regenerate-all"}, histogram = true)
+    public AvailabilityGenerationProgress regenerateAll() {
+        List<Integer> practitionerIds = ownedPractitionerIds();
+        AvailabilityGenerationProgress progress = new AvailabilityGenerationProgress(practitionerIds.size());
+        lastJob.set(progress);
+        run(practitionerIds, progress);
+        return progress;
+    }
+
+    /**
+     * Regenerates the availabilities of the given practitioners only and waits for the end of the job. With
+     * partitioning, the practitioners of other nodes are regenerated by their owners, see
+     * {@link ProPartitionService#regenerateOnOwners}, and the progress counts those of this node.
+     */
+    public AvailabilityGenerationProgress regenerate(List<Integer> practitionerIds) {
+        return regenerateHere(proPartitionService.regenerateOnOwners(practitionerIds));
+    }
+
+    /**
+     * Regenerates the given practitioners on this node, whoever owns them, for another node handing them over as
+     * their owner.
+     */
+    public AvailabilityGenerationProgress regenerateHere(List<Integer> practitionerIds) {
+        AvailabilityGenerationProgress progress = new AvailabilityGenerationProgress(practitionerIds.size());
+        run(practitionerIds, progress);
+        return progress;
+    }
+
+    // with partitioning, every node regenerates the practitioners it owns
+    private List<Integer> ownedPractitionerIds() {
+        return practitionerRepository.findAllIds().stream().filter(practitionerPartitions::isLocal).collect(Collectors.toList());
+    }
+
+    private void run(List<Integer> unordered, AvailabilityGenerationProgress progress) {
+        List<Integer> practitionerIds = new ArrayList<>(unordered);
+        practitionerIds.sort(practitionerLocks.stripeOrder());
+        log.info("Regenerating availabilities of {} practitioners with {} workers", practitionerIds.size(), threads);
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, threads));
+        Throwable failure = null;
+        try {
+            List<Future<?>> partitions = new ArrayList<>();
+            for (int from = 0; from < practitionerIds.size(); from += partitionSize) {
+                List<Integer> partition = practitionerIds.subList(from, Math.min(from + partitionSize, practitionerIds.size()));
+                partitions.add(workers.submit(() -> {
+                    progress.partitionDone(partition.size(), regeneratePartition(partition));
+                    log.info("Availability regeneration progress: {}", progress);
+                }));
+            }
+            for (Future<?> partition : partitions) {
+                partition.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        } catch (ExecutionException e) {
+            failure = e.getCause();
+        } finally {
+            workers.shutdownNow();
+            progress.finish(failure);
+        }
+        if (failure != null) {
+            log.error("Availability regeneration failed after {}", progress, failure);
+        } else {
+            log.info("Availability regeneration done: {}", progress);
+        }
+    }
+
+    private long regeneratePartition(List<Integer> practitionerIds) {
+        return practitionerLocks.withLocks(practitionerIds, () -> new TransactionTemplate(transactionManager).execute(status ->
+                sweepAndReplace(practitionerIds)));
+    }
+
+    private long sweepAndReplace(List<Integer> practitionerIds) {
+        Map<Integer, List<TimeSlot>> timeSlots = timeSlotRepository.findByPractitionerIdIn(practitionerIds).stream()
+                .collect(Collectors.groupingBy(TimeSlot::getPractitionerId));
+        Map<Integer, List<ScheduleRule>> scheduleRules = scheduleRuleRepository.findByPractitionerIdIn(practitionerIds).stream()
+                .collect(Collectors.groupingBy(ScheduleRule::getPractitionerId));
+        Map<Integer, List<Appointment>> appointments = appointmentRepository.findByPractitionerIdIn(practitionerIds).stream()
+                .collect(Collectors.groupingBy(Appointment::getPractitionerId));
+
+        boolean intervals = proAvailabilityService.getStorage() == AvailabilityStorage.INTERVALS;
+        List<FreeSlots> partitionSlots = new ArrayList<>(practitionerIds.size());
+        for (Integer practitionerId : practitionerIds) {
+            List<TimeSlot> workingHours = new ArrayList<>(timeSlots.getOrDefault(practitionerId, Collections.emptyList()));
+            workingHours.addAll(proAvailabilityService.expandScheduleRules(scheduleRules.getOrDefault(practitionerId, Collections.emptyList())));
+            FreeSlots slots = CalendarBitmap.of(workingHours,
+                    appointments.getOrDefault(practitionerId, Collections.emptyList())).freeSlots(practitionerId, SLOT_MINUTES);
+            partitionSlots.add(intervals ? slots.merged() : slots);
+        }
+
+        return replace(practitionerIds, partitionSlots, intervals);
+    }
+
+    /**
+     * Stores calendars read back from a snapshot in place of the rows of their practitioners, one partition per
+     * transaction under the locks of the partition, without sweeping anything. The calendars must hold rows of the
+     * current storage. Returns the practitioners restored.
+     */
+    public Set<Integer> restore(Iterator<FreeSlots> calendars) {
+        boolean intervals = proAvailabilityService.getStorage() == AvailabilityStorage.INTERVALS;
+        Set<Integer> restored = new HashSet<>();
+        while (calendars.hasNext()) {
+            List<FreeSlots> partitionSlots = new ArrayList<>(partitionSize);
+            while (calendars.hasNext() && partitionSlots.size() < partitionSize) {
+                partitionSlots.add(calendars.next());
+            }
+            List<Integer> practitionerIds = partitionSlots.stream().map(FreeSlots::getPractitionerId).collect(Collectors.toList());
+            practitionerLocks.withLocks(practitionerIds, () -> new TransactionTemplate(transactionManager).execute(status ->
+                    replace(practitionerIds, partitionSlots, intervals)));
+            restored.addAll(practitionerIds);
+        }
+        return restored;
+    }
+
+    // runs in the transaction of the caller, under the locks of the practitioners
+    private long replace(List<Integer> practitionerIds, List<FreeSlots> partitionSlots, boolean intervals) {
+        practitionerIds.forEach(schedulingJournal::calendarChanged);
+        availabilityCache.evictAll(practitionerIds);
+        proPartitionService.evictOnOwners(practitionerIds);
+        availabilityRepository.deleteByPractitionerIdIn(practitionerIds);
+        freeIntervalRepository.deleteByPractitionerIdIn(practitionerIds);
+        return intervals ? freeIntervalRepository.insertAll(partitionSlots) : availabilityRepository.insertAll(partitionSlots);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+    }
+}
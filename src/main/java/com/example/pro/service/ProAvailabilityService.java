@@ -1,33 +1,387 @@
 package com.example.pro.service;
 
+import com.example.pro.entity.Appointment;
 import com.example.pro.entity.Availability;
+import com.example.pro.entity.CalendarInterval;
+import com.example.pro.entity.FreeInterval;
+import com.example.pro.entity.ScheduleRule;
+import com.example.pro.entity.TimeSlot;
 import com.example.pro.repository.AppointmentRepository;
 import com.example.pro.repository.AvailabilityRepository;
+import com.example.pro.repository.FreeIntervalRepository;
+import com.example.pro.repository.PractitionerRepository;
+import com.example.pro.repository.ScheduleRuleRepository;
 import com.example.pro.repository.TimeSlotRepository;
+import com.example.pro.scheduling.AppointmentIndex;
+import com.example.pro.scheduling.AppointmentIntervals;
+import com.example.pro.scheduling.AvailabilityCache;
+import com.example.pro.scheduling.AvailabilityCacheStats;
+import com.example.pro.scheduling.AvailabilitySweep;
+import com.example.pro.scheduling.CalendarBitmap;
+import com.example.pro.scheduling.EarliestAvailabilities;
+import com.example.pro.scheduling.FreeIntervals;
+import com.example.pro.scheduling.FreeSlots;
+import com.example.pro.scheduling.PractitionerPartitions;
+import com.example.pro.scheduling.RecurrenceExpander;
+import com.example.pro.scheduling.SchedulingJournal;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 public class ProAvailabilityService {
 
+    private static final int SLOT_MINUTES = (int) AvailabilitySweep.SLOT_DURATION.toMinutes();
+    // practitioners per windowed query of the first-available search, within the IN list limits of every database
+    private static final int SEARCH_BATCH_SIZE = 1000;
+
     @Autowired
     private AvailabilityRepository availabilityRepository;
 
+    @Autowired
+    private FreeIntervalRepository freeIntervalRepository;
+
     @Autowired
     private AppointmentRepository appointmentRepository;
 
     @Autowired
     private TimeSlotRepository timeSlotRepository;
 
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private ScheduleRuleRepository scheduleRuleRepository;
+
+    @Autowired
+    private AvailabilityCache availabilityCache;
+
+    @Autowired
+    private AppointmentIndex appointmentIndex;
+
+    @Autowired
+    private SchedulingJournal schedulingJournal;
+
+    @Autowired
+    private PractitionerPartitions practitionerPartitions;
+
+    @Autowired
+    private ProPartitionService proPartitionService;
+
+    // this service behind its proxy, so that the timer of a method called from another one records it
+    @Lazy
+    @Autowired
+    private ProAvailabilityService self;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${pro.availability.horizon-days:90}")
+    private int horizonDays;
+
+    @Value("${pro.availability.storage:slots}")
+    private AvailabilityStorage storage;
+
+    /**
+     * Availabilities of the practitioner sorted by start date, served from {@link AvailabilityCache}. With interval
+     * storage, they are expanded from the free intervals when the cache is filled.
+     */
+    @Timed(value = "pro.scheduling", extraTags = {"operation", "availability.find"}, histogram = true)
     public List<Availability> findByPractitionerId(Integer practitionerId) {
-        return availabilityRepository.findByPractitionerId(practitionerId);
+        Supplier<List<Availability>> loader = () -> storage == AvailabilityStorage.INTERVALS
+                ? FreeIntervals.toAvailabilities(freeIntervalRepository.findByPractitionerIdOrderByStartDateAsc(practitionerId), SLOT_MINUTES)
+                : availabilityRepository.findByPractitionerIdOrderByStartDateAscIdAsc(practitionerId);
+        // the calendar of a practitioner owned by another node is written there, a copy cached here would go stale
+        return practitionerPartitions.isLocal(practitionerId) ? availabilityCache.get(practitionerId, loader) : loader.get();
+    }
+
+    /**
+     * One keyset page of the availabilities of the practitioner, sliced from {@link AvailabilityCache} when the calendar
+     * is cached. A miss reads the page alone from the database and leaves the cache as it is, so that paging through
+     * the calendars of many practitioners neither loads nor caches whole histories.
+     */
+    @Timed(value = "pro.scheduling", extraTags = {"operation", "availability.find-window"}, histogram = true)
+    public List<Availability> findByPractitionerId(Integer practitionerId, CalendarWindow window) {
+        List<Availability> cached = practitionerPartitions.isLocal(practitionerId) ? availabilityCache.getIfPresent(practitionerId) : null;
+        if (cached != null) {
+            return window.slice(cached, Availability::getStartDate, Availability::getId);
+        }
+        if (storage == AvailabilityStorage.INTERVALS) {
+            List<FreeInterval> intervals = freeIntervalRepository.findPage(practitionerId, window.seekStartDate(), window.upperBound(),
+                    PageRequest.of(0, window.pageSize() + 1));
+            return window.slice(FreeIntervals.toAvailabilities(intervals, SLOT_MINUTES), Availability::getStartDate, Availability::getId);
+        }
+        return availabilityRepository.findPage(practitionerId, window.seekStartDate(), window.seekId(), window.upperBound(), window.pageable());
+    }
+
+    /**
+     * Whether [startDate, endDate) lies in working time, from time slots or schedule rules, and no appointment overlaps
+     * it, so that a free window of any length can be booked. Working time is read from the database and appointments
+     * from the committed {@link AppointmentIndex}, rather than from the availability cache; callers hold the
+     * practitioner lock.
+     */
+    @Timed(value = "pro.scheduling", extraTags = {"operation", "availability.check"}, histogram = true)
+    public boolean isAvailable(Integer practitionerId, LocalDateTime startDate, LocalDateTime endDate) {
+        return !appointmentIntervals(practitionerId).overlaps(startDate, endDate)
+                && workingTime(practitionerId, startDate, endDate, Collections.emptyList()).isFree(startDate, endDate);
+    }
+
+    /**
+     * Free windows of {@code durationMinutes} starting in [from, to) on the {@code gridMinutes} grid of the clock,
+     * computed from the time slots, schedule rules and appointments of the window rather than from stored rows.
+     */
+    @Timed(value = "pro.scheduling", extraTags = {"operation", "availability.windows"}, histogram = true)
+    public List<Availability> findFreeWindows(Integer practitionerId, LocalDateTime from, LocalDateTime to, int durationMinutes, int gridMinutes) {
+        LocalDateTime end = to.plusMinutes(durationMinutes);
+        return workingTime(practitionerId, from, end, appointmentIntervals(practitionerId).overlapping(from, end))
+                .freeWindows(practitionerId, durationMinutes, gridMinutes, from, to).toAvailabilities();
+    }
+
+    /**
+     * Earliest availabilities starting in [from, to) among all the practitioners of a speciality, merged from their
+     * cached calendars. The calendars missing from the cache are not loaded whole one by one: their rows are read
+     * together with one windowed query per {@value #SEARCH_BATCH_SIZE} practitioners, only the first {@code limit} of
+     * them with slot storage.
+     */
+    @Timed(value = "pro.scheduling", extraTags = {"operation", "availability.search"}, histogram = true)
+    public List<Availability> findFirstAvailable(String speciality, LocalDateTime from, LocalDateTime to, int limit) {
+        List<List<Availability>> calendars = new ArrayList<>();
+        List<Integer> misses = new ArrayList<>();
+        for (Integer practitionerId : practitionerRepository.findIdsBySpeciality(speciality)) {
+            List<Availability> cached = practitionerPartitions.isLocal(practitionerId) ? availabilityCache.getIfPresent(practitionerId) : null;
+            if (cached != null) {
+                calendars.add(cached);
+            } else {
+                misses.add(practitionerId);
+            }
+        }
+        for (int offset = 0; offset < misses.size(); offset += SEARCH_BATCH_SIZE) {
+            List<Integer> batch = misses.subList(offset, Math.min(misses.size(), offset + SEARCH_BATCH_SIZE));
+            List<Availability> rows = storage == AvailabilityStorage.INTERVALS
+                    ? FreeIntervals.toAvailabilities(freeIntervalRepository.findOverlapping(batch, from, to), SLOT_MINUTES)
+                    : availabilityRepository.findFirstStarting(batch, from, to, PageRequest.of(0, limit));
+            // each practitioner's rows keep their order by start date
+            calendars.addAll(rows.stream()
+                    .collect(Collectors.groupingBy(Availability::getPractitionerId, LinkedHashMap::new, Collectors.toList()))
+                    .values());
+        }
+        return EarliestAvailabilities.top(calendars, from, to, limit);
+    }
+
+    /**
+     * Version of the availabilities and appointments of the practitioner, changed by every write to them. It must be
+     * read before the calendar it tags.
+     */
+    public String getCalendarVersion(Integer practitionerId) {
+        return availabilityCache.getVersion(practitionerId);
+    }
+
+    public AvailabilityCacheStats getCacheStats() {
+        return availabilityCache.getStats();
+    }
+
+    public AvailabilityStorage getStorage() {
+        return storage;
     }
 
+    /**
+     * Recomputes the availabilities of a practitioner from its time slots, schedule rules and appointments and stores
+     * them. Rows that are still valid are kept, stale ones are deleted and only the missing ones are inserted.
+     * With interval storage, the rows are the merged free intervals.
+     */
+    @Timed(value = "pro.scheduling", extraTags = {"operation", "availability.generate"}, histogram = true)
+    @Transactional
     public List<Availability> generateAvailabilities(Integer practitionerId) {
-        // TODO : implement this
-        return new ArrayList<>();
+        schedulingJournal.calendarChanged(practitionerId);
+        availabilityCache.evict(practitionerId);
+        proPartitionService.evictOnOwners(List.of(practitionerId));
+        List<TimeSlot> timeSlots = new ArrayList<>(timeSlotRepository.findByPractitionerId(practitionerId));
+        timeSlots.addAll(expandScheduleRules(scheduleRuleRepository.findByPractitionerId(practitionerId)));
+        FreeSlots generated = CalendarBitmap.of(timeSlots, appointmentRepository.findByPractitionerId(practitionerId))
+                .freeSlots(practitionerId, SLOT_MINUTES);
+        if (storage == AvailabilityStorage.INTERVALS) {
+            return reconcileIntervals(freeIntervalRepository.findByPractitionerId(practitionerId), generated);
+        }
+        return reconcile(availabilityRepository.findByPractitionerId(practitionerId), generated);
+    }
+
+    /**
+     * Recomputes only the availabilities impacted by a change between {@code from} and {@code to}, e.g. an appointment
+     * that was booked or cancelled or a time slot that was added or removed.
+     * <p>
+     * Since the grid realigns after each appointment, a change can shift every availability up to the end of its
+     * working interval. The window is therefore widened to the whole run of time slots and rule occurrences touching it
+     * before being swept and diffed against the stored rows. Returns the availabilities of the widened window.
+     */
+    @Timed(value = "pro.scheduling", extraTags = {"operation", "availability.regenerate"}, histogram = true)
+    @Transactional
+    public List<Availability> regenerateAvailabilities(Integer practitionerId, LocalDateTime from, LocalDateTime to) {
+        availabilityCache.evict(practitionerId);
+        proPartitionService.evictOnOwners(List.of(practitionerId));
+        LocalDateTime windowStart = from;
+        LocalDateTime windowEnd = to;
+        List<ScheduleRule> rules = scheduleRuleRepository.findByPractitionerId(practitionerId);
+        List<TimeSlot> timeSlots;
+        boolean widened;
+        do {
+            timeSlots = new ArrayList<>(timeSlotRepository.findByPractitionerIdAndStartDateLessThanEqualAndEndDateGreaterThanEqual(practitionerId, windowEnd, windowStart));
+            timeSlots.addAll(expandScheduleRules(rules, windowStart, windowEnd));
+            widened = false;
+            for (TimeSlot timeSlot : timeSlots) {
+                if (timeSlot.getStartDate().isBefore(windowStart)) {
+                    windowStart = timeSlot.getStartDate();
+                    widened = true;
+                }
+                if (timeSlot.getEndDate().isAfter(windowEnd)) {
+                    windowEnd = timeSlot.getEndDate();
+                    widened = true;
+                }
+            }
+        } while (widened);
+
+        FreeSlots generated = CalendarBitmap.of(timeSlots,
+                appointmentRepository.findByPractitionerIdAndStartDateLessThanAndEndDateGreaterThan(practitionerId, windowEnd, windowStart))
+                .freeSlots(practitionerId, SLOT_MINUTES);
+        if (storage == AvailabilityStorage.INTERVALS) {
+            // the widened window holds whole runs of working time, so no interval crosses its bounds
+            return reconcileIntervals(freeIntervalRepository.findByPractitionerIdAndStartDateGreaterThanEqualAndStartDateLessThan(practitionerId, windowStart, windowEnd),
+                    generated);
+        }
+        return reconcile(availabilityRepository.findByPractitionerIdAndStartDateGreaterThanEqualAndStartDateLessThan(practitionerId, windowStart, windowEnd),
+                generated);
+    }
+
+    /**
+     * Occurrences of the schedule rules over the horizon, from today to {@code pro.availability.horizon-days} later,
+     * the span over which recurring working hours are turned into availabilities.
+     */
+    public List<TimeSlot> expandScheduleRules(Collection<ScheduleRule> rules) {
+        return expandScheduleRules(rules, LocalDateTime.MIN, LocalDateTime.MAX);
+    }
+
+    private List<TimeSlot> expandScheduleRules(Collection<ScheduleRule> rules, LocalDateTime from, LocalDateTime to) {
+        if (rules.isEmpty()) {
+            return Collections.emptyList();
+        }
+        LocalDateTime horizonStart = LocalDate.now().atStartOfDay();
+        LocalDateTime horizonEnd = getHorizonEnd();
+        return RecurrenceExpander.expand(rules, from.isAfter(horizonStart) ? from : horizonStart, to.isBefore(horizonEnd) ? to : horizonEnd);
+    }
+
+    /**
+     * End of the horizon over which schedule rules are expanded, excluded: midnight {@code pro.availability.horizon-days}
+     * days from today.
+     */
+    public LocalDateTime getHorizonEnd() {
+        return LocalDate.now().atStartOfDay().plusDays(horizonDays);
+    }
+
+    /**
+     * Committed appointments of the practitioner, indexed for overlap queries. Only the indexes of the practitioners
+     * owned by this node are kept.
+     */
+    public AppointmentIntervals appointmentIntervals(Integer practitionerId) {
+        if (!practitionerPartitions.isLocal(practitionerId)) {
+            return new AppointmentIntervals(appointmentRepository.findByPractitionerId(practitionerId));
+        }
+        return appointmentIndex.get(practitionerId, () -> appointmentRepository.findByPractitionerId(practitionerId));
+    }
+
+    private CalendarBitmap workingTime(Integer practitionerId, LocalDateTime from, LocalDateTime to, List<Appointment> appointments) {
+        List<TimeSlot> timeSlots = new ArrayList<>(timeSlotRepository.findByPractitionerIdAndStartDateLessThanEqualAndEndDateGreaterThanEqual(practitionerId, to, from));
+        timeSlots.addAll(expandScheduleRules(scheduleRuleRepository.findByPractitionerId(practitionerId), from, to));
+        return CalendarBitmap.of(timeSlots, appointments);
+    }
+
+    public List<Availability> onAppointmentChanged(Appointment appointment) {
+        schedulingJournal.appointmentChanged(appointment.getPractitionerId(), appointment.getId(), appointment.getStartDate(), appointment.getEndDate());
+        return self.regenerateAvailabilities(appointment.getPractitionerId(), appointment.getStartDate(), appointment.getEndDate());
+    }
+
+    public List<Availability> onTimeSlotChanged(TimeSlot timeSlot) {
+        schedulingJournal.timeSlotChanged(timeSlot.getPractitionerId(), timeSlot.getId(), timeSlot.getStartDate(), timeSlot.getEndDate());
+        return self.regenerateAvailabilities(timeSlot.getPractitionerId(), timeSlot.getStartDate(), timeSlot.getEndDate());
+    }
+
+    private List<Availability> reconcile(List<Availability> existing, FreeSlots generated) {
+        return reconcile(existing, generated, generated::toAvailability, availabilityRepository, availabilityRepository::deleteByIdIn);
+    }
+
+    /**
+     * Same diff on the merged intervals: booking inside an interval shrinks it in place and inserts the remainder
+     * after the appointment. Returns the availabilities expanded from the reconciled intervals.
+     */
+    private List<Availability> reconcileIntervals(List<FreeInterval> existing, FreeSlots generated) {
+        FreeSlots merged = generated.merged();
+        return FreeIntervals.toAvailabilities(
+                reconcile(existing, merged, merged::toFreeInterval, freeIntervalRepository, freeIntervalRepository::deleteByIdIn), SLOT_MINUTES);
+    }
+
+    /**
+     * Diffs the generated slots against the stored rows, only the slots missing from the database become entities.
+     * Stale rows go away with one delete statement, the remaining changes are flushed as JDBC batches. Row counts
+     * per change are recorded in {@code pro.availability.rows}.
+     */
+    private <T extends CalendarInterval> List<T> reconcile(List<T> existing, FreeSlots generated, IntFunction<T> toEntity,
+                                                           CrudRepository<T, ?> repository, Consumer<List<Integer>> deleteByIds) {
+        Map<LocalDateTime, T> existingByStart = new HashMap<>();
+        List<T> stale = new ArrayList<>();
+        for (T row : existing) {
+            T previous = existingByStart.put(row.getStartDate(), row);
+            if (previous != null) {
+                stale.add(previous);
+            }
+        }
+
+        List<T> result = new ArrayList<>(generated.size());
+        List<T> changed = new ArrayList<>();
+        for (int i = 0; i < generated.size(); i++) {
+            T kept = existingByStart.remove(generated.startDate(i));
+            if (kept == null) {
+                changed.add(toEntity.apply(i));
+            } else if (!kept.getEndDate().equals(generated.endDate(i))) {
+                // updated in place rather than deleted and inserted again, (practitionerId, startDate) stays unique
+                kept.setEndDate(generated.endDate(i));
+                changed.add(kept);
+            } else {
+                result.add(kept);
+            }
+        }
+        stale.addAll(existingByStart.values());
+
+        recordRows("kept", result.size());
+        recordRows("written", changed.size());
+        recordRows("deleted", stale.size());
+        if (!stale.isEmpty()) {
+            deleteByIds.accept(stale.stream().map(CalendarInterval::getId).collect(Collectors.toList()));
+        }
+        repository.saveAll(changed).forEach(result::add);
+        result.sort(Comparator.comparing(CalendarInterval::getStartDate));
+        return result;
+    }
+
+    private void recordRows(String change, int rows) {
+        meterRegistry.summary("pro.availability.rows", "change", change).record(rows);
     }
 }
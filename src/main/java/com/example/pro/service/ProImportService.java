@@ -0,0 +1,346 @@
+package com.example.pro.service;
+
+import com.example.pro.entity.Appointment;
+import com.example.pro.exception.InvalidImportException;
+import com.example.pro.repository.PractitionerRepository;
+import com.example.pro.repository.SequenceSql;
+import com.example.pro.scheduling.AppointmentIndex;
+import com.example.pro.scheduling.AppointmentIntervals;
+import com.example.pro.scheduling.PractitionerLocks;
+import com.example.pro.scheduling.SchedulingJournal;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Imports large volumes of practitioners, patients, time slots or appointments from CSV or NDJSON.
+ * <p>
+ * The input is parsed one line at a time and only one batch of rows is held in memory. Invalid rows are rejected and
+ * reported, appointments overlapping a booking or an earlier row included, valid ones are written with JDBC batch
+ * inserts, each batch committed on its own. A batch of time slots or appointments is written under the locks of its
+ * practitioners, so that it does not interleave with their bookings, and appointments booked since their rows were
+ * validated are checked again there. The appointment indexes of the practitioners of a batch of appointments are
+ * evicted as it commits, so that bookings never check against an index missing committed rows. Once the input is
+ * consumed, or a batch failed, the availabilities of the practitioners whose time slots or appointments were
+ * committed are regenerated.
+ */
+@Service
+public class ProImportService {
+
+    public enum Format {
+        /**
+         * A header line naming the entity properties, then one row per line. Fields may be double-quoted.
+         */
+        CSV,
+        /**
+         * One JSON document per line.
+         */
+        NDJSON
+    }
+
+    private final Logger log = LoggerFactory.getLogger(ProImportService.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private ProAvailabilityBulkService proAvailabilityBulkService;
+
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private AppointmentIndex appointmentIndex;
+
+    @Autowired
+    private PractitionerLocks practitionerLocks;
+
+    @Autowired
+    private SchedulingJournal schedulingJournal;
+
+    @Autowired
+    private ProPartitionService proPartitionService;
+
+    @Autowired
+    private PatientIndex patientIndex;
+
+    @Autowired
+    private SequenceSql sequenceSql;
+
+    @Value("${pro.import.batch-size:1000}")
+    private int batchSize;
+
+    @Timed(value = "pro.scheduling", extraTags = {"operation", "import"}, histogram = true)
+    public ImportReport importRows(ImportType type, Format format, InputStream input) throws IOException, InvalidImportException {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport(type);
+        Set<Integer> practitionerIds = type.touchesCalendars() ? new HashSet<>(practitionerRepository.findAllIds()) : Collections.emptySet();
+        Set<Integer> touchedPractitioners = new HashSet<>();
+        List<Object> batch = new ArrayList<>(batchSize);
+        List<Long> batchLines = new ArrayList<>(batchSize);
+        BatchBookings bookings = new BatchBookings();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        List<String> header = null;
+        if (format == Format.CSV) {
+            String headerLine = reader.readLine();
+            lineNumber++;
+            if (headerLine == null || headerLine.isBlank()) {
+                throw new InvalidImportException("A CSV import starts with a header line naming the columns");
+            }
+            header = splitCsv(headerLine);
+        }
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                report.read();
+                Object row;
+                String error;
+                try {
+                    row = format == Format.CSV ? fromCsv(type, header, splitCsv(line)) : objectMapper.readValue(line, type.getEntityClass());
+                    error = type.validate(row, practitionerIds, bookings);
+                } catch (JsonProcessingException | IllegalArgumentException e) {
+                    row = null;
+                    error = "unreadable row, " + String.valueOf(e.getMessage()).split("\n")[0];
+                }
+                if (error != null) {
+                    report.reject(lineNumber, error);
+                    continue;
+                }
+                batch.add(row);
+                batchLines.add(lineNumber);
+                if (batch.size() == batchSize) {
+                    write(type, batch, batchLines, report, touchedPractitioners);
+                    bookings.clear();
+                }
+            }
+            write(type, batch, batchLines, report, touchedPractitioners);
+        } finally {
+            // the batches committed before a failure are regenerated as well
+            if (!touchedPractitioners.isEmpty()) {
+                List<Integer> practitioners = new ArrayList<>(touchedPractitioners);
+                Collections.sort(practitioners);
+                AvailabilityGenerationProgress progress = proAvailabilityBulkService.regenerate(practitioners);
+                report.regenerated(progress.getProcessedPractitioners(), progress.getGeneratedAvailabilities());
+            }
+        }
+        report.finish((System.nanoTime() - start) / 1_000_000);
+        log.info("Import done: {}", report);
+        return report;
+    }
+
+    /**
+     * Writes rows built in memory, such as synthetic data, with the same batches as {@link #importRows}. The rows are
+     * trusted and availabilities are not regenerated, the caller does it once all the rows are written.
+     */
+    public ImportReport insertAll(ImportType type, Iterator<?> rows) {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport(type);
+        List<Object> batch = new ArrayList<>(batchSize);
+        while (rows.hasNext()) {
+            report.read();
+            batch.add(rows.next());
+            if (batch.size() == batchSize) {
+                write(type, batch, null, report, null);
+            }
+        }
+        write(type, batch, null, report, null);
+        report.finish((System.nanoTime() - start) / 1_000_000);
+        log.info("Insert done: {}", report);
+        return report;
+    }
+
+    /**
+     * Writes and commits a batch. The appointments of validated rows, whose line numbers are given, are checked again
+     * under the locks against the bookings committed since. The practitioners of the committed calendar rows are added
+     * to {@code touchedPractitioners} when given.
+     */
+    private void write(ImportType type, List<Object> batch, List<Long> lines, ImportReport report, Set<Integer> touchedPractitioners) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (!type.touchesCalendars()) {
+            insert(type, batch);
+        } else {
+            List<Integer> practitionerIds = batch.stream().map(type::practitionerId).distinct().collect(Collectors.toList());
+            practitionerLocks.withLocks(practitionerIds, () -> {
+                if (type == ImportType.APPOINTMENTS && lines != null) {
+                    rejectOverlaps(batch, lines, report);
+                }
+                insert(type, batch);
+                return null;
+            });
+            if (touchedPractitioners != null) {
+                batch.stream().map(type::practitionerId).forEach(touchedPractitioners::add);
+            }
+        }
+        if (type == ImportType.PATIENTS) {
+            patientIndex.invalidate();
+        }
+        report.imported(batch.size());
+        batch.clear();
+        if (lines != null) {
+            lines.clear();
+        }
+    }
+
+    private void insert(ImportType type, List<Object> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (type.touchesCalendars()) {
+                List<Integer> practitionerIds = batch.stream().map(type::practitionerId).distinct().collect(Collectors.toList());
+                practitionerIds.forEach(schedulingJournal::calendarChanged);
+                if (type == ImportType.APPOINTMENTS) {
+                    // evicted again once the batch commits, and by the owners of the other practitioners
+                    appointmentIndex.evictAll(practitionerIds);
+                    proPartitionService.evictOnOwners(practitionerIds);
+                }
+            }
+            jdbcTemplate.batchUpdate(type.getInsert(sequenceSql.nextValueExpression(ImportType.ID_SEQUENCE)), new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement statement, int i) throws SQLException {
+                    type.bind(statement, batch.get(i));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batch.size();
+                }
+            });
+        });
+    }
+
+    /**
+     * Rejects the appointments of the batch overlapping one committed since they were validated.
+     */
+    private void rejectOverlaps(List<Object> batch, List<Long> lines, ImportReport report) {
+        for (int i = 0; i < batch.size(); i++) {
+            Appointment appointment = (Appointment) batch.get(i);
+            if (proAvailabilityService.appointmentIntervals(appointment.getPractitionerId())
+                    .overlaps(appointment.getStartDate(), appointment.getEndDate())) {
+                report.reject(lines.get(i), ImportType.OVERLAPPING_APPOINTMENT);
+                batch.remove(i);
+                lines.remove(i);
+                i--;
+            }
+        }
+    }
+
+    private Object fromCsv(ImportType type, List<String> header, List<String> fields) {
+        if (fields.size() != header.size()) {
+            throw new IllegalArgumentException(header.size() + " fields expected, " + fields.size() + " found");
+        }
+        Map<String, String> properties = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            if (!fields.get(i).isEmpty()) {
+                properties.put(header.get(i), fields.get(i));
+            }
+        }
+        return objectMapper.convertValue(properties, type.getEntityClass());
+    }
+
+    /**
+     * Splits a CSV line on commas, a double-quoted field may contain commas and doubled quotes.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    /**
+     * Appointments an imported row is checked against: the committed ones, read once per practitioner and batch, and
+     * the rows accepted into the current batch, non-overlapping and keyed by start date.
+     */
+    private class BatchBookings implements ImportType.Bookings {
+        private final Map<Integer, AppointmentIntervals> committed = new HashMap<>();
+        private final Map<Integer, TreeMap<LocalDateTime, LocalDateTime>> accepted = new HashMap<>();
+
+        @Override
+        public boolean reserve(Integer practitionerId, LocalDateTime startDate, LocalDateTime endDate) {
+            TreeMap<LocalDateTime, LocalDateTime> periods = accepted.computeIfAbsent(practitionerId, id -> new TreeMap<>());
+            // the last accepted period starting before the end also ends last among them
+            Map.Entry<LocalDateTime, LocalDateTime> previous = periods.lowerEntry(endDate);
+            if (previous != null && previous.getValue().isAfter(startDate)
+                    || committed.computeIfAbsent(practitionerId, proAvailabilityService::appointmentIntervals).overlaps(startDate, endDate)) {
+                return false;
+            }
+            periods.put(startDate, endDate);
+            return true;
+        }
+
+        /**
+         * Forgets the current batch once it is committed.
+         */
+        void clear() {
+            committed.clear();
+            accepted.clear();
+        }
+    }
+}
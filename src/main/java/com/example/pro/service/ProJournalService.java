@@ -0,0 +1,274 @@
+package com.example.pro.service;
+
+import com.example.pro.entity.DatabaseIdentity;
+import com.example.pro.repository.DatabaseIdentityRepository;
+import com.example.pro.repository.PractitionerRepository;
+import com.example.pro.repository.ScheduleRuleRepository;
+import com.example.pro.scheduling.CalendarSnapshot;
+import com.example.pro.scheduling.FreeSlots;
+import com.example.pro.scheduling.JournalEntry;
+import com.example.pro.scheduling.PractitionerPartitions;
+import com.example.pro.scheduling.SchedulingJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Snapshots of the stored calendars and recovery from the last one plus the tail of the scheduling journal.
+ * <p>
+ * Rows committed to the database are never overwritten by a snapshot: on restart against the database the snapshot was
+ * taken from, it only restores the calendars missing from the tables, and the practitioners changed since, per the
+ * journal tail, are regenerated instead of every calendar. A snapshot of another database, such as an earlier
+ * in-memory one re-seeded with recycled ids, or one whose journal tail was truncated, is ignored. Each snapshot is
+ * built from the previous one, only the calendars journaled as changed since are read back from the tables.
+ */
+@Service
+public class ProJournalService {
+
+    static final String SNAPSHOT_FILE = "calendars.snapshot";
+    private static final int READ_BATCH_SIZE = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(ProJournalService.class);
+
+    @Autowired
+    private SchedulingJournal schedulingJournal;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private ScheduleRuleRepository scheduleRuleRepository;
+
+    @Autowired
+    private DatabaseIdentityRepository databaseIdentityRepository;
+
+    @Autowired
+    private PractitionerPartitions practitionerPartitions;
+
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private ProAvailabilityBulkService proAvailabilityBulkService;
+
+    private volatile String databaseId;
+
+    /**
+     * Writes the stored calendars to a new snapshot, then drops the journal segments it makes useless. The calendars
+     * of the previous snapshot are copied over, except those journaled as changed since, which are read from the
+     * tables; the tables are only scanned whole without a usable previous snapshot. Does nothing while the journal is
+     * disabled.
+     */
+    @Scheduled(initialDelayString = "${pro.journal.snapshot-interval-ms:600000}", fixedDelayString = "${pro.journal.snapshot-interval-ms:600000}")
+    public synchronized void snapshot() {
+        if (!schedulingJournal.isEnabled()) {
+            return;
+        }
+        // taken before reading any row: a change committed during the scan is replayed even if the scan saw it
+        long replayFrom = schedulingJournal.replayFrom();
+        AvailabilityStorage storage = proAvailabilityService.getStorage();
+        String table = storage == AvailabilityStorage.INTERVALS ? "free_interval" : "availability";
+        CalendarSnapshot.Reader previous = usableSnapshot();
+        try (CalendarSnapshot.Writer writer = CalendarSnapshot.write(snapshotPath(), replayFrom, LocalDate.now(), storage.name(), databaseId())) {
+            RowCallbackHandler rows = row -> writer.add(row.getInt(1), row.getTimestamp(2).toLocalDateTime(), row.getTimestamp(3).toLocalDateTime());
+            if (previous == null) {
+                jdbcTemplate.query("select practitioner_id, start_date, end_date from " + table + " order by practitioner_id, start_date", rows);
+            } else {
+                Set<Integer> changed = new TreeSet<>();
+                schedulingJournal.readFrom(previous.getSnapshot().getReplayFrom()).forEach(entry -> changed.add(entry.getPractitionerId()));
+                while (previous.hasNext()) {
+                    FreeSlots calendar = previous.next();
+                    if (!changed.contains(calendar.getPractitionerId())) {
+                        writer.add(calendar);
+                    }
+                }
+                // released before the new snapshot is moved in its place
+                previous.close();
+                List<Integer> changedIds = new ArrayList<>(changed);
+                for (int from = 0; from < changedIds.size(); from += READ_BATCH_SIZE) {
+                    namedParameterJdbcTemplate.query("select practitioner_id, start_date, end_date from " + table
+                                    + " where practitioner_id in (:practitionerIds) order by practitioner_id, start_date",
+                            Map.of("practitionerIds", changedIds.subList(from, Math.min(from + READ_BATCH_SIZE, changedIds.size()))), rows);
+                }
+                log.info("Calendar snapshot updated with {} changed practitioners", changedIds.size());
+            }
+            writer.publish();
+            log.info("Calendar snapshot of {} practitioners, {} rows, replaying from {}", writer.getPractitioners(), writer.getRows(), replayFrom);
+        } finally {
+            if (previous != null) {
+                previous.close();
+            }
+        }
+        schedulingJournal.truncateBefore(replayFrom);
+    }
+
+    /**
+     * Restores the calendars of the last snapshot that are missing from the tables, for the practitioners owned by this
+     * node, then regenerates what changed
+     * since: the practitioners it does not hold either, those with schedule rules when it was taken another day, and
+     * the journaled changes of the restored ones. Calendars still stored are kept as committed. Returns false, leaving
+     * the rows untouched, when the journal is disabled or there is no usable snapshot.
+     */
+    public synchronized boolean recover() {
+        if (!schedulingJournal.isEnabled()) {
+            return false;
+        }
+        CalendarSnapshot.Reader reader = usableSnapshot();
+        if (reader == null) {
+            return false;
+        }
+        CalendarSnapshot snapshot = reader.getSnapshot();
+        // read before restoring, which journals the calendars it replaces
+        List<JournalEntry> tail = schedulingJournal.readFrom(snapshot.getReplayFrom());
+        // with partitioning, every node recovers the practitioners it owns
+        Set<Integer> missing = practitionerRepository.findAllIds().stream().filter(practitionerPartitions::isLocal)
+                .collect(Collectors.toCollection(HashSet::new));
+        missing.removeAll(storedPractitionerIds());
+        Set<Integer> restored;
+        try {
+            restored = proAvailabilityBulkService.restore(new KnownPractitioners(reader, missing));
+        } finally {
+            reader.close();
+        }
+
+        Set<Integer> stale = new HashSet<>(missing);
+        stale.removeAll(restored);
+        if (!snapshot.getTakenOn().equals(LocalDate.now())) {
+            // the horizon of the schedule rules has moved since
+            scheduleRuleRepository.findPractitionerIds().stream().filter(practitionerPartitions::isLocal).forEach(stale::add);
+        }
+        for (JournalEntry entry : tail) {
+            if (entry.getType() == JournalEntry.Type.CALENDAR && restored.contains(entry.getPractitionerId())) {
+                stale.add(entry.getPractitionerId());
+            }
+        }
+        proAvailabilityBulkService.regenerate(new ArrayList<>(stale));
+        int replayed = 0;
+        for (JournalEntry entry : tail) {
+            if (entry.getType() != JournalEntry.Type.CALENDAR && restored.contains(entry.getPractitionerId())
+                    && !stale.contains(entry.getPractitionerId())) {
+                proAvailabilityService.regenerateAvailabilities(entry.getPractitionerId(), entry.getStartDate(), entry.getEndDate());
+                replayed++;
+            }
+        }
+        log.info("Recovered {} calendars from snapshot, regenerated {}, replayed {} journal entries", restored.size(), stale.size(), replayed);
+        snapshot();
+        return true;
+    }
+
+    /**
+     * Opens the last snapshot if it can be replayed from the journal onto the current tables, else returns null.
+     */
+    private CalendarSnapshot.Reader usableSnapshot() {
+        CalendarSnapshot.Reader reader = CalendarSnapshot.read(snapshotPath());
+        if (reader == null) {
+            return null;
+        }
+        CalendarSnapshot snapshot = reader.getSnapshot();
+        String ignored = null;
+        if (!proAvailabilityService.getStorage().name().equals(snapshot.getStorage())) {
+            ignored = "it holds " + snapshot.getStorage() + " rows, not " + proAvailabilityService.getStorage();
+        } else if (!databaseId().equals(snapshot.getDatabaseId())) {
+            ignored = "it was taken from another database";
+        } else if (snapshot.getReplayFrom() < schedulingJournal.firstSequence()) {
+            ignored = "the journal was truncated past it";
+        }
+        if (ignored != null) {
+            log.info("Calendar snapshot ignored, {}", ignored);
+            reader.close();
+            return null;
+        }
+        return reader;
+    }
+
+    private Set<Integer> storedPractitionerIds() {
+        String table = proAvailabilityService.getStorage() == AvailabilityStorage.INTERVALS ? "free_interval" : "availability";
+        return new HashSet<>(jdbcTemplate.queryForList("select distinct practitioner_id from " + table, Integer.class));
+    }
+
+    /**
+     * Identity of the database, created along with the first snapshot of a new one.
+     */
+    private String databaseId() {
+        if (databaseId == null) {
+            databaseId = databaseIdentityRepository.findById(DatabaseIdentity.ID).map(DatabaseIdentity::getToken).orElseGet(() -> {
+                try {
+                    return databaseIdentityRepository.save(new DatabaseIdentity(DatabaseIdentity.ID, UUID.randomUUID().toString())).getToken();
+                } catch (DataIntegrityViolationException e) {
+                    // created meanwhile by another node sharing the database
+                    return databaseIdentityRepository.findById(DatabaseIdentity.ID).orElseThrow().getToken();
+                }
+            });
+        }
+        return databaseId;
+    }
+
+    private Path snapshotPath() {
+        return schedulingJournal.getDirectory().resolve(SNAPSHOT_FILE);
+    }
+
+    /**
+     * Skips the calendars of practitioners deleted since the snapshot, or still stored.
+     */
+    private static final class KnownPractitioners implements Iterator<FreeSlots> {
+        private final CalendarSnapshot.Reader reader;
+        private final Set<Integer> practitionerIds;
+        private FreeSlots next;
+
+        private KnownPractitioners(CalendarSnapshot.Reader reader, Set<Integer> practitionerIds) {
+            this.reader = reader;
+            this.practitionerIds = practitionerIds;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public FreeSlots next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            FreeSlots current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null && reader.hasNext()) {
+                FreeSlots calendar = reader.next();
+                if (practitionerIds.contains(calendar.getPractitionerId())) {
+                    next = calendar;
+                }
+            }
+        }
+    }
+}
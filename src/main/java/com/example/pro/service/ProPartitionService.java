@@ -0,0 +1,241 @@
+package com.example.pro.service;
+
+import com.example.pro.repository.PractitionerRepository;
+import com.example.pro.scheduling.AppointmentIndex;
+import com.example.pro.scheduling.AvailabilityCache;
+import com.example.pro.scheduling.ConsistentHashRing;
+import com.example.pro.scheduling.PractitionerPartitions;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Membership changes of the partitioning ring. A node announces itself to the other nodes once started and leaves the
+ * ring when stopped; on every change, the practitioners moving to or from this node have their cached calendars and
+ * appointment indexes dropped, since their owner may have written them meanwhile.
+ * <p>
+ * Writes served by a node for practitioners it does not own, such as imports or schedule rule removals, tell the
+ * owners to drop their cached calendars and appointment indexes once committed, and bulk regenerations hand the
+ * practitioners of other nodes over to their owners, so that each calendar is only written under its owner's locks.
+ */
+@Service
+public class ProPartitionService {
+
+    private static final Duration ANNOUNCE_TIMEOUT = Duration.ofSeconds(2);
+    private static final Duration REGENERATION_TIMEOUT = Duration.ofMinutes(30);
+
+    private final Logger log = LoggerFactory.getLogger(ProPartitionService.class);
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(ANNOUNCE_TIMEOUT).build();
+
+    @Autowired
+    private PractitionerPartitions practitionerPartitions;
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private AvailabilityCache availabilityCache;
+
+    @Autowired
+    private AppointmentIndex appointmentIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public PartitionStatus getStatus() {
+        return status(0);
+    }
+
+    public PartitionStatus join(String node) {
+        return change(ring -> ring.with(PractitionerPartitions.normalize(node)));
+    }
+
+    public PartitionStatus leave(String node) {
+        return change(ring -> ring.without(PractitionerPartitions.normalize(node)));
+    }
+
+    /**
+     * Drops the cached calendars and appointment indexes of practitioners written by another node.
+     */
+    public void evict(Collection<Integer> practitionerIds) {
+        availabilityCache.evictAll(practitionerIds);
+        appointmentIndex.evictAll(practitionerIds);
+    }
+
+    /**
+     * Tells the owners of the practitioners other than this node to drop their cached calendars and appointment
+     * indexes, once the current transaction completes or right away outside of one. An owner out of reach is skipped,
+     * it starts with empty caches anyway.
+     */
+    public void evictOnOwners(Collection<Integer> practitionerIds) {
+        Map<String, List<Integer>> remote = byRemoteOwner(practitionerIds);
+        if (remote.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remote.forEach(this::sendEvictions);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                remote.forEach(ProPartitionService.this::sendEvictions);
+            }
+        });
+    }
+
+    /**
+     * Has the owners of the practitioners other than this node regenerate their availabilities and waits for them,
+     * then returns the practitioners left to this node.
+     */
+    public List<Integer> regenerateOnOwners(List<Integer> practitionerIds) {
+        Map<String, List<Integer>> remote = byRemoteOwner(practitionerIds);
+        if (remote.isEmpty()) {
+            return practitionerIds;
+        }
+        List<Integer> local = new ArrayList<>();
+        for (Integer practitionerId : practitionerIds) {
+            if (practitionerPartitions.isLocal(practitionerId)) {
+                local.add(practitionerId);
+            }
+        }
+        remote.forEach((node, owned) -> {
+            int status = send(node, "/partitions/regenerations", owned, REGENERATION_TIMEOUT);
+            if (status != 200) {
+                throw new IllegalStateException("Node " + node + " failed to regenerate " + owned.size() + " practitioners, status " + status);
+            }
+        });
+        return local;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void announceJoin() {
+        announce("POST");
+    }
+
+    @PreDestroy
+    public void announceLeave() {
+        announce("DELETE");
+    }
+
+    private PartitionStatus change(UnaryOperator<ConsistentHashRing> change) {
+        if (!practitionerPartitions.isEnabled()) {
+            return getStatus();
+        }
+        ConsistentHashRing previous = practitionerPartitions.update(change);
+        ConsistentHashRing current = practitionerPartitions.getRing();
+        String self = practitionerPartitions.getSelf();
+        List<Integer> moved = new ArrayList<>();
+        if (previous != current) {
+            for (Integer practitionerId : practitionerRepository.findAllIds()) {
+                boolean wasLocal = self.equals(previous.owner(practitionerId));
+                if (wasLocal != self.equals(current.owner(practitionerId))) {
+                    moved.add(practitionerId);
+                }
+            }
+            availabilityCache.evictAll(moved);
+            appointmentIndex.evictAll(moved);
+            log.info("Partition ring now {}, {} practitioners moved to or from {}", current.getNodes(), moved.size(), self);
+        }
+        return status(moved.size());
+    }
+
+    private PartitionStatus status(int moved) {
+        List<Integer> practitionerIds = practitionerRepository.findAllIds();
+        return PartitionStatus.builder()
+                .enabled(practitionerPartitions.isEnabled())
+                .self(practitionerPartitions.getSelf())
+                .nodes(practitionerPartitions.getRing().getNodes())
+                .practitioners(practitionerIds.size())
+                .ownedPractitioners((int) practitionerIds.stream().filter(practitionerPartitions::isLocal).count())
+                .movedPractitioners(moved)
+                .build();
+    }
+
+    private Map<String, List<Integer>> byRemoteOwner(Collection<Integer> practitionerIds) {
+        Map<String, List<Integer>> remote = new TreeMap<>();
+        if (practitionerPartitions.isEnabled()) {
+            for (Integer practitionerId : practitionerIds) {
+                if (!practitionerPartitions.isLocal(practitionerId)) {
+                    remote.computeIfAbsent(practitionerPartitions.ownerOf(practitionerId), node -> new ArrayList<>()).add(practitionerId);
+                }
+            }
+        }
+        return remote;
+    }
+
+    private void sendEvictions(String node, List<Integer> practitionerIds) {
+        int status = send(node, "/partitions/evictions", practitionerIds, ANNOUNCE_TIMEOUT);
+        if (status / 100 != 2) {
+            log.warn("Could not evict {} practitioners on {}, status {}", practitionerIds.size(), node, status);
+        }
+    }
+
+    // returns the status of the response, or -1 when the node could not be reached
+    private int send(String node, String path, List<Integer> practitionerIds, Duration timeout) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(node + path))
+                    .timeout(timeout)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(practitionerIds)))
+                    .build();
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (Exception e) {
+            log.warn("Could not reach {}{}: {}", node, path, e.toString());
+            return -1;
+        }
+    }
+
+    private void announce(String method) {
+        String self = practitionerPartitions.getSelf();
+        if (self == null) {
+            return;
+        }
+        for (String node : practitionerPartitions.getRing().getNodes()) {
+            if (Objects.equals(node, self)) {
+                continue;
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(node + "/partitions/nodes?url=" + URLEncoder.encode(self, StandardCharsets.UTF_8)))
+                    .timeout(ANNOUNCE_TIMEOUT)
+                    .method(method, HttpRequest.BodyPublishers.noBody())
+                    .build();
+            try {
+                httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            } catch (Exception e) {
+                // a node down now learns the membership from its own configuration and announcements when it starts
+                log.warn("Could not announce {} {} to {}: {}", method, self, node, e.toString());
+            }
+        }
+    }
+}
@@ -2,16 +2,27 @@ package com.example.pro.service;
 
 import com.example.pro.entity.Patient;
 import com.example.pro.repository.PatientRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public class ProPatientService {
     @Autowired
     private PatientRepository patientRepository;
 
+    @Autowired
+    private EntityStreamer entityStreamer;
+
+    @Autowired
+    private PatientIndex patientIndex;
+
     public Patient find(String patientId) {
         return patientRepository.findById(patientId).orElseThrow();
     }
@@ -19,4 +30,48 @@ public class ProPatientService {
     public List<Patient> findAll() {
         return patientRepository.findAll();
     }
+
+    /**
+     * Hands every patient to the action without ever holding them all in memory.
+     */
+    public void forEach(Consumer<Patient> action) {
+        entityStreamer.forEach(patientRepository::streamAll, action);
+    }
+
+    /**
+     * Saves the patient, indexed for search once its transaction commits.
+     */
+    @Transactional
+    public Patient save(Patient patient) {
+        Patient saved = patientRepository.save(patient);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    patientIndex.put(saved);
+                }
+            });
+        } else {
+            patientIndex.put(saved);
+        }
+        return saved;
+    }
+
+    /**
+     * Patients matching the names, birth date or birth year of the query from {@link PatientIndex}, loaded from the
+     * table on the first search and after bulk imports.
+     */
+    @Timed(value = "pro.scheduling", extraTags = {"operation", "patient.search"}, histogram = true)
+    public List<Patient> search(String query, int limit) {
+        if (!patientIndex.isLoaded()) {
+            loadIndex();
+        }
+        return patientIndex.search(query, limit);
+    }
+
+    private synchronized void loadIndex() {
+        if (!patientIndex.isLoaded()) {
+            patientIndex.load(this::forEach);
+        }
+    }
 }
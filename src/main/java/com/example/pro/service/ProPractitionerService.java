@@ -6,12 +6,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public class ProPractitionerService {
     @Autowired
     private PractitionerRepository practitionerRepository;
 
+    @Autowired
+    private EntityStreamer entityStreamer;
+
     public Practitioner find(String practitionerId) {
         return practitionerRepository.findById(practitionerId).orElseThrow();
     }
@@ -19,4 +23,11 @@ public class ProPractitionerService {
     public List<Practitioner> findAll() {
         return practitionerRepository.findAll();
     }
+
+    /**
+     * Hands every practitioner to the action without ever holding them all in memory.
+     */
+    public void forEach(Consumer<Practitioner> action) {
+        entityStreamer.forEach(practitionerRepository::streamAll, action);
+    }
 }
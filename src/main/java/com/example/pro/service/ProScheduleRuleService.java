@@ -0,0 +1,66 @@
+package com.example.pro.service;
+
+import com.example.pro.entity.ScheduleRule;
+import com.example.pro.exception.InvalidScheduleRuleException;
+import com.example.pro.repository.ScheduleRuleRepository;
+import com.example.pro.scheduling.PractitionerLocks;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Recurring working hours of the practitioners. Rules are never expanded in the database, a change regenerates the
+ * availabilities of the practitioner over the horizon, in the transaction of the change and under the practitioner
+ * lock, so that a concurrent booking is either seen by the regeneration or checked against its result.
+ */
+@Service
+public class ProScheduleRuleService {
+    @Autowired
+    private ScheduleRuleRepository scheduleRuleRepository;
+
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private PractitionerLocks practitionerLocks;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    public List<ScheduleRule> findByPractitionerId(Integer practitionerId) {
+        return scheduleRuleRepository.findByPractitionerId(practitionerId);
+    }
+
+    @Timed(value = "pro.scheduling", extraTags = {"operation", "schedule-rule.save"}, histogram = true)
+    public ScheduleRule save(ScheduleRule scheduleRule) throws InvalidScheduleRuleException {
+        if (scheduleRule.getPractitionerId() == null || scheduleRule.getStartTime() == null || scheduleRule.getEndTime() == null
+                || scheduleRule.getValidFrom() == null || scheduleRule.getDaysOfWeek() == null || scheduleRule.getDaysOfWeek().isEmpty()
+                || scheduleRule.getIntervalWeeks() < 1
+                || (scheduleRule.getValidUntil() != null && scheduleRule.getValidUntil().isBefore(scheduleRule.getValidFrom()))) {
+            throw new InvalidScheduleRuleException("A schedule rule needs a practitioner, days of week, start and end times,"
+                    + " an interval of at least one week and a validity starting before it ends");
+        }
+        return practitionerLocks.withLock(scheduleRule.getPractitionerId(), () -> new TransactionTemplate(transactionManager).execute(status -> {
+            ScheduleRule saved = scheduleRuleRepository.save(scheduleRule);
+            proAvailabilityService.generateAvailabilities(saved.getPractitionerId());
+            return saved;
+        }));
+    }
+
+    @Timed(value = "pro.scheduling", extraTags = {"operation", "schedule-rule.delete"}, histogram = true)
+    public void delete(Integer scheduleRuleId) {
+        scheduleRuleRepository.findById(scheduleRuleId).ifPresent(scheduleRule ->
+                practitionerLocks.withLock(scheduleRule.getPractitionerId(), () -> new TransactionTemplate(transactionManager).execute(status -> {
+                    // read again under the lock, a concurrent delete may have won
+                    scheduleRuleRepository.findById(scheduleRuleId).ifPresent(current -> {
+                        scheduleRuleRepository.delete(current);
+                        proAvailabilityService.generateAvailabilities(current.getPractitionerId());
+                    });
+                    return null;
+                })));
+    }
+}
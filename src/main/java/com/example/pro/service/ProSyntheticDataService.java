@@ -0,0 +1,174 @@
+package com.example.pro.service;
+
+import com.example.pro.entity.Appointment;
+import com.example.pro.entity.Patient;
+import com.example.pro.entity.Practitioner;
+import com.example.pro.entity.TimeSlot;
+import com.example.pro.repository.PatientRepository;
+import com.example.pro.repository.PractitionerRepository;
+import com.example.pro.scheduling.AppointmentIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Generates reproducible data sets at the scale of a real deployment, to size it and load test it offline.
+ * <p>
+ * Practitioners work four or five weekdays, mornings and most of them afternoons, and their appointments of 15 to 45
+ * minutes fill about {@link SyntheticDataSpec#getBookingRate()} of their time. Each practitioner draws from random
+ * generators seeded by the spec seed and its rank, so the data does not depend on the order it is written in.
+ * Rows are streamed to the JDBC batches of {@link ProImportService#insertAll} and never held in memory all at once,
+ * then the availabilities of the new practitioners are regenerated.
+ */
+@Service
+public class ProSyntheticDataService {
+
+    private static final String[] SPECIALITIES = {"general practitioner", "general practitioner", "general practitioner",
+            "general practitioner", "dentist", "dentist", "orthodontist", "pediatrician", "dermatologist", "ophthalmologist"};
+    private static final int[] APPOINTMENT_MINUTES = {15, 15, 15, 15, 15, 15, 15, 30, 30, 45};
+
+    private final Logger log = LoggerFactory.getLogger(ProSyntheticDataService.class);
+
+    @Autowired
+    private ProImportService proImportService;
+
+    @Autowired
+    private ProAvailabilityBulkService proAvailabilityBulkService;
+
+    @Autowired
+    private AppointmentIndex appointmentIndex;
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Value("${pro.synthetic.practitioners:0}")
+    private int practitioners;
+
+    @Value("${pro.synthetic.patients-per-practitioner:10}")
+    private int patientsPerPractitioner;
+
+    @Value("${pro.synthetic.days:28}")
+    private int days;
+
+    @Value("${pro.synthetic.booking-rate:0.4}")
+    private double bookingRate;
+
+    @Value("${pro.synthetic.seed:42}")
+    private long seed;
+
+    @Value("${pro.synthetic.start-date:}")
+    private String startDate;
+
+    /**
+     * The spec of the {@code pro.synthetic} properties, starting today unless a start date is set. No data is
+     * generated at startup while it has no practitioner.
+     */
+    public SyntheticDataSpec getConfiguredSpec() {
+        return SyntheticDataSpec.builder().practitioners(practitioners).patientsPerPractitioner(patientsPerPractitioner)
+                .days(days).bookingRate(bookingRate).seed(seed)
+                .startDate(startDate.isBlank() ? LocalDate.now() : LocalDate.parse(startDate)).build();
+    }
+
+    /**
+     * Writes the practitioners, patients, time slots and appointments of the spec, then regenerates the availabilities
+     * of the new practitioners. Returns one report per written entity.
+     */
+    public List<ImportReport> generate(SyntheticDataSpec spec) {
+        log.info("Generating {} practitioners over {} days from {} with seed {}", spec.getPractitioners(), spec.getDays(),
+                spec.getStartDate(), spec.getSeed());
+        List<ImportReport> reports = new ArrayList<>();
+        int firstPractitioner = lastId(practitionerRepository.findAllIds()) + 1;
+        reports.add(proImportService.insertAll(ImportType.PRACTITIONERS, IntStream.range(0, spec.getPractitioners())
+                .mapToObj(rank -> practitioner(spec, rank)).iterator()));
+        int firstPatient = lastId(patientRepository.findAllIds()) + 1;
+        reports.add(proImportService.insertAll(ImportType.PATIENTS, LongStream.range(0, (long) spec.getPractitioners() * spec.getPatientsPerPractitioner())
+                .mapToObj(rank -> Patient.builder().firstName("patient_" + rank).lastName("synthetic").build()).iterator()));
+
+        List<Integer> practitionerIds = practitionerRepository.findAllIds().stream().filter(id -> id >= firstPractitioner).collect(Collectors.toList());
+        int[] patientIds = patientRepository.findAllIds().stream().filter(id -> id >= firstPatient).mapToInt(Integer::intValue).toArray();
+        reports.add(proImportService.insertAll(ImportType.TIME_SLOTS, IntStream.range(0, practitionerIds.size())
+                .boxed().flatMap(rank -> calendar(spec, rank, practitionerIds.get(rank), patientIds).timeSlots.stream()).iterator()));
+        reports.add(proImportService.insertAll(ImportType.APPOINTMENTS, IntStream.range(0, practitionerIds.size())
+                .boxed().flatMap(rank -> calendar(spec, rank, practitionerIds.get(rank), patientIds).appointments.stream()).iterator()));
+
+        appointmentIndex.evictAll(practitionerIds);
+        AvailabilityGenerationProgress progress = proAvailabilityBulkService.regenerate(practitionerIds);
+        log.info("Synthetic data generated: {}, {}", reports, progress);
+        return reports;
+    }
+
+    private static Practitioner practitioner(SyntheticDataSpec spec, int rank) {
+        Random random = new Random(Objects.hash(spec.getSeed(), rank, "practitioner"));
+        return Practitioner.builder().firstName("practitioner_" + rank).lastName("synthetic")
+                .speciality(SPECIALITIES[random.nextInt(SPECIALITIES.length)]).build();
+    }
+
+    /**
+     * Working hours and appointments of the practitioner of the given rank. Recomputed rather than kept between the
+     * time slot and appointment passes, the seed makes both passes draw the same calendar.
+     */
+    private static Calendar calendar(SyntheticDataSpec spec, int rank, Integer practitionerId, int[] patientIds) {
+        Random random = new Random(Objects.hash(spec.getSeed(), rank, "calendar"));
+        Calendar calendar = new Calendar();
+        DayOfWeek dayOff = random.nextInt(3) == 0 ? DayOfWeek.of(1 + random.nextInt(5)) : null;
+        boolean partTime = random.nextInt(5) == 0;
+        LocalTime morningStart = LocalTime.of(8, 0).plusMinutes(30L * random.nextInt(3));
+        LocalTime morningEnd = LocalTime.of(12, 0).plusMinutes(30L * random.nextInt(2));
+        LocalTime afternoonStart = LocalTime.of(13, 30).plusMinutes(30L * random.nextInt(2));
+        LocalTime afternoonEnd = LocalTime.of(17, 0).plusMinutes(30L * random.nextInt(5));
+        for (int d = 0; d < spec.getDays(); d++) {
+            LocalDate day = spec.getStartDate().plusDays(d);
+            if (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY || day.getDayOfWeek() == dayOff) {
+                continue;
+            }
+            calendar.work(practitionerId, day.atTime(morningStart), day.atTime(morningEnd), spec, random, patientIds);
+            if (!partTime) {
+                calendar.work(practitionerId, day.atTime(afternoonStart), day.atTime(afternoonEnd), spec, random, patientIds);
+            }
+        }
+        return calendar;
+    }
+
+    private static int lastId(List<Integer> ids) {
+        return ids.isEmpty() ? 0 : ids.get(ids.size() - 1);
+    }
+
+    private static final class Calendar {
+        private final List<TimeSlot> timeSlots = new ArrayList<>();
+        private final List<Appointment> appointments = new ArrayList<>();
+
+        private void work(Integer practitionerId, LocalDateTime start, LocalDateTime end, SyntheticDataSpec spec, Random random, int[] patientIds) {
+            timeSlots.add(TimeSlot.builder().practitionerId(practitionerId).startDate(start).endDate(end).build());
+            // one draw per quarter of an hour, a booked appointment skips the quarters it covers
+            LocalDateTime cursor = start;
+            while (cursor.isBefore(end)) {
+                LocalDateTime appointmentEnd = cursor.plusMinutes(APPOINTMENT_MINUTES[random.nextInt(APPOINTMENT_MINUTES.length)]);
+                if (random.nextDouble() < spec.getBookingRate() && !appointmentEnd.isAfter(end) && patientIds.length > 0) {
+                    appointments.add(Appointment.builder().practitionerId(practitionerId)
+                            .patientId(patientIds[random.nextInt(patientIds.length)])
+                            .startDate(cursor).endDate(appointmentEnd).build());
+                    cursor = appointmentEnd;
+                } else {
+                    cursor = cursor.plusMinutes(15);
+                }
+            }
+        }
+    }
+}
@@ -2,17 +2,52 @@ package com.example.pro.service;
 
 import com.example.pro.entity.TimeSlot;
 import com.example.pro.repository.TimeSlotRepository;
+import com.example.pro.scheduling.PractitionerLocks;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 
+/**
+ * Working hours of the practitioners. A change regenerates the availabilities it impacts in its transaction, under the
+ * practitioner lock like bookings, so that neither can consume or restore rows the other is about to replace.
+ */
 @Service
 public class ProTimeSlotService {
     @Autowired
     private TimeSlotRepository timeSlotRepository;
 
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private PractitionerLocks practitionerLocks;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     public List<TimeSlot> findByPractitionerId(Integer practitionerId) {
         return timeSlotRepository.findByPractitionerId(practitionerId);
     }
+
+    @Timed(value = "pro.scheduling", extraTags = {"operation", "time-slot.save"}, histogram = true)
+    public TimeSlot save(TimeSlot timeSlot) {
+        return practitionerLocks.withLock(timeSlot.getPractitionerId(), () -> new TransactionTemplate(transactionManager).execute(status -> {
+            TimeSlot saved = timeSlotRepository.save(timeSlot);
+            proAvailabilityService.onTimeSlotChanged(saved);
+            return saved;
+        }));
+    }
+
+    @Timed(value = "pro.scheduling", extraTags = {"operation", "time-slot.delete"}, histogram = true)
+    public void delete(TimeSlot timeSlot) {
+        practitionerLocks.withLock(timeSlot.getPractitionerId(), () -> new TransactionTemplate(transactionManager).execute(status -> {
+            timeSlotRepository.delete(timeSlot);
+            proAvailabilityService.onTimeSlotChanged(timeSlot);
+            return null;
+        }));
+    }
 }
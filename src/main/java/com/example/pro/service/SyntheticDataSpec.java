@@ -0,0 +1,26 @@
+package com.example.pro.service;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Size and shape of a synthetic data set. The same spec, seed and start date always give the same rows.
+ */
+@Getter
+@Builder
+public class SyntheticDataSpec {
+    private final int practitioners;
+    private final int patientsPerPractitioner;
+    /**
+     * Calendar days covered by time slots from {@link #startDate}, weekends are not worked.
+     */
+    private final int days;
+    /**
+     * Share of the working time taken by appointments, between 0 and 1.
+     */
+    private final double bookingRate;
+    private final long seed;
+    private final LocalDate startDate;
+}
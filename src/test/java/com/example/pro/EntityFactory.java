@@ -3,9 +3,14 @@ package com.example.pro;
 import com.github.javafaker.Faker;
 import com.example.pro.entity.Appointment;
 import com.example.pro.entity.Practitioner;
+import com.example.pro.entity.ScheduleRule;
 import com.example.pro.entity.TimeSlot;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumSet;
 import java.util.Locale;
 
 public class EntityFactory {
@@ -34,4 +39,14 @@ public class EntityFactory {
                 .endDate(end)
                 .build();
     }
+
+    public ScheduleRule createScheduleRule(Integer practitionerId, EnumSet<DayOfWeek> daysOfWeek, LocalTime startTime, LocalTime endTime, LocalDate validFrom) {
+        return ScheduleRule.builder()
+                .practitionerId(practitionerId)
+                .daysOfWeek(daysOfWeek)
+                .startTime(startTime)
+                .endTime(endTime)
+                .validFrom(validFrom)
+                .build();
+    }
 }
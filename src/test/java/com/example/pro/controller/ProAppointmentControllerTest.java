@@ -0,0 +1,147 @@
+package com.example.pro.controller;
+
+import com.example.pro.EntityFactory;
+import com.example.pro.entity.Appointment;
+import com.example.pro.entity.Practitioner;
+import com.example.pro.repository.AppointmentRepository;
+import com.example.pro.repository.PractitionerRepository;
+import com.example.pro.repository.TimeSlotRepository;
+import com.example.pro.service.ProAppointmentService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs on a database of its own, whose appointments each test clears, so that streamed responses can be compared
+ * with exactly the rows written by the test. Pages of the calendar of a practitioner are revalidated by ETag.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:controllers;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class ProAppointmentControllerTest {
+    private final EntityFactory entityFactory = new EntityFactory();
+    private static final Integer patient_id = 657679;
+    private static final LocalDateTime START_DATE = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Autowired
+    private ProAppointmentService proAppointmentService;
+
+    @BeforeEach
+    void clearAppointments() {
+        appointmentRepository.deleteAll();
+    }
+
+    @Test
+    void appointmentsAreStreamedAsOneJsonArray() throws Exception {
+        assertEquals("[]", stream(MediaType.APPLICATION_JSON_VALUE));
+
+        Set<Integer> saved = saveAppointments(3);
+        String body = stream(MediaType.APPLICATION_JSON_VALUE);
+
+        List<Appointment> streamed = objectMapper.readValue(body, new TypeReference<List<Appointment>>() {
+        });
+        assertEquals(saved, streamed.stream().map(Appointment::getId).collect(Collectors.toSet()));
+        List<String> documents = new ArrayList<>();
+        for (Appointment appointment : streamed) {
+            documents.add(objectMapper.writeValueAsString(appointment));
+        }
+        assertEquals("[" + String.join(",", documents) + "]", body);
+    }
+
+    @Test
+    void appointmentsAreStreamedAsNdjson() throws Exception {
+        assertEquals("", stream(JsonStreaming.APPLICATION_NDJSON_VALUE));
+
+        Set<Integer> saved = saveAppointments(3);
+        String body = stream(JsonStreaming.APPLICATION_NDJSON_VALUE);
+
+        StringBuilder expected = new StringBuilder();
+        Set<Integer> streamed = new HashSet<>();
+        for (String line : body.split("\n")) {
+            Appointment appointment = objectMapper.readValue(line, Appointment.class);
+            streamed.add(appointment.getId());
+            expected.append(objectMapper.writeValueAsString(appointment)).append('\n');
+        }
+        assertEquals(saved, streamed);
+        assertEquals(expected.toString(), body);
+    }
+
+    @Test
+    void pageOfAppointmentsIsRevalidatedAgainstTheCalendarVersion() throws Exception {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        String page = "/appointments/" + practitioner.getId();
+        String eTag = mockMvc.perform(get(page).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get(page).accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), START_DATE, START_DATE.plusHours(1)));
+        proAppointmentService.book(entityFactory.createAppointment(practitioner.getId(), patient_id, START_DATE, START_DATE.plusMinutes(15)));
+
+        MvcResult changed = mockMvc.perform(get(page).accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertNotEquals(eTag, changed.getResponse().getHeader(HttpHeaders.ETAG));
+        assertEquals(1, objectMapper.readValue(changed.getResponse().getContentAsString(), Appointment[].class).length);
+    }
+
+    private Set<Integer> saveAppointments(int count) {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = START_DATE.plusMinutes(15L * i);
+            ids.add(appointmentRepository.save(entityFactory.createAppointment(practitioner.getId(), patient_id, start, start.plusMinutes(15))).getId());
+        }
+        return ids;
+    }
+
+    private String stream(String mediaType) throws Exception {
+        MvcResult started = mockMvc.perform(get("/appointments").accept(mediaType))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(mediaType))
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.pro.controller;
+
+import com.example.pro.EntityFactory;
+import com.example.pro.entity.Practitioner;
+import com.example.pro.repository.PractitionerRepository;
+import com.example.pro.repository.TimeSlotRepository;
+import com.example.pro.scheduling.CalendarWireFormat;
+import com.example.pro.service.ProAvailabilityService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Revalidation of the availability pages against the calendar version, see {@link KeysetPagination#notModified}.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:controllers;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class ProAvailabilityControllerTest {
+    private final EntityFactory entityFactory = new EntityFactory();
+    private static final Integer patient_id = 657679;
+    private static final LocalDateTime START_DATE = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    private Practitioner practitioner;
+
+    @BeforeEach
+    void createCalendar() {
+        practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), START_DATE, START_DATE.plusHours(1)));
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+    }
+
+    @Test
+    void currentCalendarIsAnsweredNotModified() throws Exception {
+        MvcResult page = mockMvc.perform(get(availabilities()).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn();
+        String eTag = page.getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue(page.getResponse().getContentAsString().contains(START_DATE.toString()));
+
+        mockMvc.perform(get(availabilities()).accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void calendarEncodingIsTaggedApart() throws Exception {
+        String jsonETag = mockMvc.perform(get(availabilities()).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String calendarETag = mockMvc.perform(get(availabilities()).accept(CalendarWireFormat.MEDIA_TYPE_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CalendarWireFormat.MEDIA_TYPE_VALUE))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertEquals(jsonETag.substring(0, jsonETag.length() - 1) + "-cal\"", calendarETag);
+        // a JSON copy does not revalidate the calendar encoding, nor the other way round
+        mockMvc.perform(get(availabilities()).accept(CalendarWireFormat.MEDIA_TYPE_VALUE).header(HttpHeaders.IF_NONE_MATCH, jsonETag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(availabilities()).accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, calendarETag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(availabilities()).accept(CalendarWireFormat.MEDIA_TYPE_VALUE).header(HttpHeaders.IF_NONE_MATCH, calendarETag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void bookingChangesTheETag() throws Exception {
+        String eTag = mockMvc.perform(get(availabilities()).accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(post("/appointments").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"practitionerId\":" + practitioner.getId() + ",\"patientId\":" + patient_id
+                        + ",\"startDate\":\"" + START_DATE + "\",\"endDate\":\"" + START_DATE.plusMinutes(15) + "\"}"))
+                .andExpect(status().isCreated());
+
+        MvcResult page = mockMvc.perform(get(availabilities()).accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertNotEquals(eTag, page.getResponse().getHeader(HttpHeaders.ETAG));
+        assertFalse(page.getResponse().getContentAsString().contains("\"" + START_DATE + "\""));
+    }
+
+    private String availabilities() {
+        return "/availabilities?practitionerId=" + practitioner.getId();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.pro.controller;
+
+import com.example.pro.entity.Patient;
+import com.example.pro.repository.PatientRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Shares the database of {@link ProAppointmentControllerTest}, its patients are cleared by each test.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:controllers;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class ProPatientControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @BeforeEach
+    void clearPatients() {
+        patientRepository.deleteAll();
+    }
+
+    @Test
+    void patientsAreStreamedAsOneJsonArray() throws Exception {
+        assertEquals("[]", stream(MediaType.APPLICATION_JSON_VALUE));
+
+        Set<Integer> saved = savePatients(3);
+        String body = stream(MediaType.APPLICATION_JSON_VALUE);
+
+        List<Patient> streamed = objectMapper.readValue(body, new TypeReference<List<Patient>>() {
+        });
+        assertEquals(saved, streamed.stream().map(Patient::getId).collect(Collectors.toSet()));
+        List<String> documents = new ArrayList<>();
+        for (Patient patient : streamed) {
+            documents.add(objectMapper.writeValueAsString(patient));
+        }
+        assertEquals("[" + String.join(",", documents) + "]", body);
+    }
+
+    @Test
+    void patientsAreStreamedAsNdjson() throws Exception {
+        assertEquals("", stream(JsonStreaming.APPLICATION_NDJSON_VALUE));
+
+        Set<Integer> saved = savePatients(3);
+        String body = stream(JsonStreaming.APPLICATION_NDJSON_VALUE);
+
+        StringBuilder expected = new StringBuilder();
+        Set<Integer> streamed = new HashSet<>();
+        for (String line : body.split("\n")) {
+            Patient patient = objectMapper.readValue(line, Patient.class);
+            streamed.add(patient.getId());
+            expected.append(objectMapper.writeValueAsString(patient)).append('\n');
+        }
+        assertEquals(saved, streamed);
+        assertEquals(expected.toString(), body);
+    }
+
+    private Set<Integer> savePatients(int count) {
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(patientRepository.save(Patient.builder().firstName("Ada").lastName("Lovelace " + i)
+                    .birthDate(LocalDate.of(1815, 12, 10)).build()).getId());
+        }
+        return ids;
+    }
+
+    private String stream(String mediaType) throws Exception {
+        MvcResult started = mockMvc.perform(get("/patients").accept(mediaType))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(mediaType))
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.pro.repository;
+
+import com.example.pro.service.CalendarWindow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Grows the availability and appointment tables step by step and measures the per-practitioner range queries at each
+ * size. Latency must stay flat, which only holds when the (practitionerId, startDate) indexes are used.
+ * <p>
+ * Disabled by default, run it with {@code ./gradlew test --tests '*Benchmark*' -Dpro.benchmark=true}; the table sizes
+ * can be changed with {@code -Dpro.benchmark.rows=10000,100000,1000000}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "pro.benchmark", matches = "true")
+class ScheduleQueryLatencyBenchmarkTest {
+    private static final int FIRST_PRACTITIONER_ID = 1_000_000;
+    private static final int ROWS_PER_PRACTITIONER = 1_000;
+    private static final LocalDateTime FIRST_DAY = LocalDateTime.of(2021, 1, 4, 8, 0);
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 1_000;
+
+    @Autowired
+    private AvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Random random = new Random(42);
+    private int practitioners;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from availability where practitioner_id >= ?", FIRST_PRACTITIONER_ID);
+        jdbcTemplate.update("delete from appointment where practitioner_id >= ?", FIRST_PRACTITIONER_ID);
+    }
+
+    @Test
+    void rangeQueryLatencyStaysFlatAsTablesGrow() {
+        long[] steps = Arrays.stream(System.getProperty("pro.benchmark.rows", "10000,100000,1000000").split(","))
+                .mapToLong(step -> Long.parseLong(step.trim())).toArray();
+        assertTrue(plan("select * from availability where practitioner_id = 1 and start_date >= now() and start_date < now()")
+                .contains("UK_AVAILABILITY_PRACTITIONER_START"));
+        assertTrue(plan("select * from appointment where practitioner_id = 1 and start_date < now() and end_date > now()")
+                .contains("IDX_APPOINTMENT_PRACTITIONER_START"));
+
+        List<double[]> results = new ArrayList<>();
+        for (long rows : steps) {
+            growTo(rows);
+            double window = medianMicros(practitionerId -> availabilityRepository.findByPractitionerIdAndStartDateGreaterThanEqualAndStartDateLessThan(
+                    practitionerId, FIRST_DAY.plusDays(3), FIRST_DAY.plusDays(4)));
+            double page = medianMicros(practitionerId -> availabilityRepository.findPage(practitionerId, FIRST_DAY.plusDays(3), Integer.MIN_VALUE,
+                    FIRST_DAY.plusDays(10), CalendarWindow.builder().size(50).build().pageable()));
+            double overlap = medianMicros(practitionerId -> appointmentRepository.findByPractitionerIdAndStartDateLessThanAndEndDateGreaterThan(
+                    practitionerId, FIRST_DAY.plusDays(4), FIRST_DAY.plusDays(3)));
+            results.add(new double[]{rows, window, page, overlap});
+            System.out.printf("%,12d rows/table  window %8.1f us  page %8.1f us  overlap %8.1f us%n", rows, window, page, overlap);
+        }
+
+        double[] smallest = results.get(0);
+        double[] largest = results.get(results.size() - 1);
+        for (int column = 1; column < smallest.length; column++) {
+            assertTrue(largest[column] < smallest[column] * 5, "query latency grew with the table size");
+        }
+    }
+
+    private void growTo(long rows) {
+        int target = (int) (rows / ROWS_PER_PRACTITIONER);
+        for (; practitioners < target; practitioners++) {
+            int practitionerId = FIRST_PRACTITIONER_ID + practitioners;
+            List<Object[]> availabilities = new ArrayList<>(ROWS_PER_PRACTITIONER);
+            List<Object[]> appointments = new ArrayList<>(ROWS_PER_PRACTITIONER);
+            for (int slot = 0; slot < ROWS_PER_PRACTITIONER; slot++) {
+                LocalDateTime start = FIRST_DAY.plusDays(slot / 32).plusMinutes(15L * (slot % 32));
+                availabilities.add(new Object[]{practitionerId, Timestamp.valueOf(start), Timestamp.valueOf(start.plusMinutes(15))});
+                appointments.add(new Object[]{practitionerId, random.nextInt(100_000), Timestamp.valueOf(start), Timestamp.valueOf(start.plusMinutes(15))});
+            }
+            jdbcTemplate.batchUpdate("insert into availability (id, practitioner_id, start_date, end_date)"
+                    + " values (next value for availability_seq, ?, ?, ?)", availabilities);
+            jdbcTemplate.batchUpdate("insert into appointment (id, practitioner_id, patient_id, start_date, end_date)"
+                    + " values (next value for hibernate_sequence, ?, ?, ?, ?)", appointments);
+        }
+    }
+
+    private double medianMicros(IntConsumer query) {
+        for (int i = 0; i < WARMUP; i++) {
+            query.accept(randomPractitioner());
+        }
+        long[] durations = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            int practitionerId = randomPractitioner();
+            long start = System.nanoTime();
+            query.accept(practitionerId);
+            durations[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(durations);
+        return durations[ITERATIONS / 2] / 1_000d;
+    }
+
+    private int randomPractitioner() {
+        return FIRST_PRACTITIONER_ID + random.nextInt(practitioners);
+    }
+
+    private String plan(String query) {
+        return String.join("\n", jdbcTemplate.queryForList("explain " + query, String.class)).toUpperCase();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.pro.scheduling;
+
+import com.example.pro.entity.Appointment;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class AppointmentIntervalsTest {
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2020, Month.FEBRUARY, 5, 0, 0, 0);
+
+    @Test
+    void overlapQueriesMatchALinearScanThroughWrites() {
+        Random random = new Random(21);
+        List<Appointment> appointments = new ArrayList<>();
+        for (int id = 0; id < 2000; id++) {
+            appointments.add(randomAppointment(random, id));
+        }
+        AppointmentIntervals intervals = new AppointmentIntervals(appointments);
+
+        for (int round = 0; round < 500; round++) {
+            if (round % 2 == 0) {
+                Appointment added = randomAppointment(random, 2000 + round);
+                appointments.add(added);
+                intervals.add(added);
+            } else {
+                Appointment removed = appointments.remove(random.nextInt(appointments.size()));
+                intervals.remove(removed.getId());
+            }
+            LocalDateTime start = ORIGIN.plusMinutes(random.nextInt(60 * 24 * 30));
+            LocalDateTime end = start.plusMinutes(1 + random.nextInt(120));
+            List<Integer> expected = appointments.stream()
+                    .filter(appointment -> appointment.getStartDate().isBefore(end) && appointment.getEndDate().isAfter(start))
+                    .map(Appointment::getId).sorted().collect(Collectors.toList());
+
+            assertEquals(!expected.isEmpty(), intervals.overlaps(start, end));
+            assertEquals(expected, intervals.overlapping(start, end).stream().map(Appointment::getId).sorted().collect(Collectors.toList()));
+        }
+        assertEquals(appointments.size(), intervals.size());
+    }
+
+    @Test
+    void longAppointmentIsFoundBehindShorterOnes() {
+        AppointmentIntervals intervals = new AppointmentIntervals(List.of(
+                appointment(1, ORIGIN.plusHours(8), ORIGIN.plusHours(18)),
+                appointment(2, ORIGIN.plusHours(9), ORIGIN.plusHours(10)),
+                appointment(3, ORIGIN.plusHours(11), ORIGIN.plusHours(12))));
+
+        assertEquals(List.of(1), ids(intervals.overlapping(ORIGIN.plusHours(13), ORIGIN.plusHours(14))));
+        assertEquals(List.of(1, 3), ids(intervals.containing(ORIGIN.plusHours(11))));
+        assertEquals(List.of(), ids(intervals.containing(ORIGIN.plusHours(18))));
+        assertFalse(intervals.overlaps(ORIGIN.plusHours(18), ORIGIN.plusHours(19)));
+    }
+
+    private static Appointment randomAppointment(Random random, int id) {
+        LocalDateTime start = ORIGIN.plusMinutes(15L * random.nextInt(4 * 24 * 30));
+        // mostly short bookings, a few long ones spanning many of them
+        int minutes = random.nextInt(50) == 0 ? 60 * (1 + random.nextInt(48)) : 15 * (1 + random.nextInt(3));
+        return appointment(id, start, start.plusMinutes(minutes));
+    }
+
+    private static Appointment appointment(int id, LocalDateTime start, LocalDateTime end) {
+        return Appointment.builder().id(id).practitionerId(1).patientId(1).startDate(start).endDate(end).build();
+    }
+
+    private static List<Integer> ids(List<Appointment> appointments) {
+        return appointments.stream().map(Appointment::getId).collect(Collectors.toList());
+    }
+}
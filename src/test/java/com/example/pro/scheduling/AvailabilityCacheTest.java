@@ -0,0 +1,57 @@
+package com.example.pro.scheduling;
+
+import com.example.pro.entity.Availability;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AvailabilityCacheTest {
+    private static final LocalDateTime START_DATE = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+
+    @Test
+    void leastRecentlyReadCalendarsAreEvictedUntilTheRowsFit() {
+        AvailabilityCache cache = new AvailabilityCache(10);
+        cache.get(1, () -> availabilities(1, 4));
+        cache.get(2, () -> availabilities(2, 4));
+        cache.getIfPresent(1);
+
+        cache.get(3, () -> availabilities(3, 5));
+
+        assertNotNull(cache.getIfPresent(1));
+        assertNull(cache.getIfPresent(2));
+        assertNotNull(cache.getIfPresent(3));
+        assertEquals(9, cache.getStats().getRows());
+        assertEquals(1, cache.getStats().getSizeEvictions());
+
+        cache.evict(3);
+        assertEquals(4, cache.getStats().getRows());
+    }
+
+    @Test
+    void calendarLargerThanTheBoundIsServedWithoutBeingCached() {
+        AvailabilityCache cache = new AvailabilityCache(10);
+        cache.get(1, () -> availabilities(1, 4));
+
+        assertEquals(11, cache.get(2, () -> availabilities(2, 11)).size());
+
+        assertNull(cache.getIfPresent(2));
+        assertNotNull(cache.getIfPresent(1));
+        assertEquals(4, cache.getStats().getRows());
+    }
+
+    private static List<Availability> availabilities(Integer practitionerId, int count) {
+        List<Availability> availabilities = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = START_DATE.plusMinutes(15L * i);
+            availabilities.add(Availability.builder().id(i).practitionerId(practitionerId).startDate(start).endDate(start.plusMinutes(15)).build());
+        }
+        return availabilities;
+    }
+}
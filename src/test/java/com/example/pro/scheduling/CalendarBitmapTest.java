@@ -0,0 +1,122 @@
+package com.example.pro.scheduling;
+
+import com.example.pro.EntityFactory;
+import com.example.pro.entity.Appointment;
+import com.example.pro.entity.Availability;
+import com.example.pro.entity.TimeSlot;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CalendarBitmapTest {
+    private final EntityFactory entityFactory = new EntityFactory();
+    private final static Integer practitioner_id = 1;
+    private final static Integer patient_id = 657679;
+
+    @Test
+    void freeSlotsWithOddLengthAppointment() {
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+        List<TimeSlot> timeSlots = List.of(entityFactory.createTimeSlot(practitioner_id, startDate, startDate.plusHours(1)));
+        List<Appointment> appointments = List.of(entityFactory.createAppointment(practitioner_id, patient_id, startDate.plusMinutes(15), startDate.plusMinutes(35)));
+
+        FreeSlots slots = CalendarBitmap.of(timeSlots, appointments).freeSlots(practitioner_id, 15);
+
+        assertEquals(3, slots.size());
+        assertEquals(startDate, slots.startDate(0));
+        assertEquals(startDate.plusMinutes(35), slots.startDate(1));
+        assertEquals(startDate.plusMinutes(50), slots.startDate(2));
+        assertEquals(startDate.plusHours(1), slots.endDate(2));
+    }
+
+    @Test
+    void freeSlotsWithoutTimeSlots() {
+        assertEquals(0, CalendarBitmap.of(Collections.emptyList(), Collections.emptyList()).freeSlots(practitioner_id, 15).size());
+    }
+
+    @Test
+    void freeSlotsMatchTheIntervalSweep() {
+        Random random = new Random(7);
+        for (int calendar = 0; calendar < 200; calendar++) {
+            LocalDateTime day = LocalDateTime.of(2021, Month.MARCH, 1, 0, 0);
+            List<TimeSlot> timeSlots = new ArrayList<>();
+            List<Appointment> appointments = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                LocalDateTime start = day.plusMinutes(5L * random.nextInt(2 * 24 * 12));
+                timeSlots.add(entityFactory.createTimeSlot(practitioner_id, start, start.plusMinutes(5 + 5L * random.nextInt(72))));
+            }
+            for (int i = 0; i < 20; i++) {
+                LocalDateTime start = day.plusMinutes(random.nextInt(2 * 24 * 60));
+                appointments.add(entityFactory.createAppointment(practitioner_id, patient_id, start, start.plusMinutes(1 + random.nextInt(40))));
+            }
+
+            List<Availability> expected = AvailabilitySweep.sweep(practitioner_id, timeSlots, appointments);
+            FreeSlots slots = CalendarBitmap.of(timeSlots, appointments).freeSlots(practitioner_id, 15);
+
+            assertEquals(expected, slots.toAvailabilities());
+        }
+    }
+
+    @Test
+    void freeWindowsOfThirtyMinutesOnAQuarterHourGrid() {
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.FEBRUARY, 5, 9, 10, 0);
+        List<TimeSlot> timeSlots = List.of(entityFactory.createTimeSlot(practitioner_id, startDate, startDate.plusMinutes(110)));
+        List<Appointment> appointments = List.of(entityFactory.createAppointment(practitioner_id, patient_id, startDate.plusMinutes(50), startDate.plusMinutes(60)));
+
+        FreeSlots windows = CalendarBitmap.of(timeSlots, appointments)
+                .freeWindows(practitioner_id, 30, 15, startDate.minusHours(1), startDate.plusHours(3));
+
+        // free 9:10-10:00 and 10:10-11:00
+        List<LocalDateTime> expectedStartDate = List.of(startDate.plusMinutes(5), startDate.plusMinutes(20), startDate.plusMinutes(65), startDate.plusMinutes(80));
+        assertEquals(expectedStartDate.size(), windows.size());
+        for (int i = 0; i < windows.size(); i++) {
+            assertEquals(expectedStartDate.get(i), windows.startDate(i));
+            assertEquals(expectedStartDate.get(i).plusMinutes(30), windows.endDate(i));
+        }
+    }
+
+    @Test
+    void freeWindowsAreExactlyTheFreeGridRanges() {
+        Random random = new Random(11);
+        LocalDateTime day = LocalDateTime.of(2021, Month.MARCH, 1, 0, 0);
+        for (int calendar = 0; calendar < 100; calendar++) {
+            List<TimeSlot> timeSlots = new ArrayList<>();
+            List<Appointment> appointments = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                LocalDateTime start = day.plusMinutes(5L * random.nextInt(2 * 24 * 12));
+                timeSlots.add(entityFactory.createTimeSlot(practitioner_id, start, start.plusMinutes(5 + 5L * random.nextInt(72))));
+            }
+            for (int i = 0; i < 20; i++) {
+                LocalDateTime start = day.plusMinutes(random.nextInt(2 * 24 * 60));
+                appointments.add(entityFactory.createAppointment(practitioner_id, patient_id, start, start.plusMinutes(1 + random.nextInt(40))));
+            }
+            int duration = 5 + random.nextInt(60);
+            int grid = 5 + random.nextInt(30);
+            LocalDateTime from = day.plusMinutes(random.nextInt(24 * 60));
+            LocalDateTime to = from.plusHours(24);
+            CalendarBitmap bitmap = CalendarBitmap.of(timeSlots, appointments);
+
+            List<LocalDateTime> expected = new ArrayList<>();
+            for (LocalDateTime midnight = day; midnight.isBefore(to); midnight = midnight.plusDays(1)) {
+                for (LocalDateTime start = midnight; start.isBefore(midnight.plusDays(1)) && start.isBefore(to); start = start.plusMinutes(grid)) {
+                    if (!start.isBefore(from) && bitmap.isFree(start, start.plusMinutes(duration))) {
+                        expected.add(start);
+                    }
+                }
+            }
+            FreeSlots windows = bitmap.freeWindows(practitioner_id, duration, grid, from, to);
+            List<LocalDateTime> actual = new ArrayList<>();
+            for (int i = 0; i < windows.size(); i++) {
+                actual.add(windows.startDate(i));
+            }
+
+            assertEquals(expected, actual);
+        }
+    }
+}
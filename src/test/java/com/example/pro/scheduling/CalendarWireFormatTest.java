@@ -0,0 +1,68 @@
+package com.example.pro.scheduling;
+
+import com.example.pro.EntityFactory;
+import com.example.pro.entity.Appointment;
+import com.example.pro.entity.Availability;
+import com.example.pro.entity.TimeSlot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CalendarWireFormatTest {
+    private final EntityFactory entityFactory = new EntityFactory();
+    private final static Integer practitioner_id = 1;
+    private final static Integer patient_id = 657679;
+    private final static LocalDateTime START_DATE = LocalDateTime.of(2020, Month.FEBRUARY, 3, 0, 0);
+
+    @Test
+    void monthOfAvailabilitiesIsAnOrderOfMagnitudeSmallerThanJson() throws Exception {
+        List<TimeSlot> timeSlots = new ArrayList<>();
+        List<Appointment> appointments = new ArrayList<>();
+        for (int day = 0; day < 30; day++) {
+            LocalDateTime morning = START_DATE.plusDays(day).withHour(9);
+            timeSlots.add(entityFactory.createTimeSlot(practitioner_id, morning, morning.plusHours(9)));
+            appointments.add(entityFactory.createAppointment(practitioner_id, patient_id, morning.plusMinutes(20 * day), morning.plusMinutes(20 * day + 40)));
+        }
+        List<Availability> availabilities = AvailabilitySweep.sweep(practitioner_id, timeSlots, appointments);
+        for (int i = 0; i < availabilities.size(); i++) {
+            availabilities.get(i).setId(1000 + i);
+        }
+
+        byte[] encoded = CalendarWireFormat.encode(availabilities);
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+        assertEquals(availabilities, CalendarWireFormat.decodeAvailabilities(encoded));
+        assertTrue(objectMapper.writeValueAsBytes(availabilities).length > 10 * encoded.length);
+    }
+
+    @Test
+    void roundTripsRunsOfPractitionersAndMissingIds() {
+        List<Appointment> appointments = List.of(
+                Appointment.builder().id(42).practitionerId(2).patientId(patient_id).startDate(START_DATE).endDate(START_DATE.plusMinutes(15)).build(),
+                Appointment.builder().id(7).practitionerId(2).startDate(START_DATE.minusDays(3)).endDate(START_DATE.minusDays(3).plusMinutes(45)).build(),
+                Appointment.builder().practitionerId(5).patientId(0).startDate(START_DATE.plusYears(1)).endDate(START_DATE.plusYears(1).plusHours(2)).build(),
+                Appointment.builder().id(8).practitionerId(2).patientId(3).startDate(START_DATE).endDate(START_DATE.plusMinutes(30)).build());
+
+        assertEquals(appointments, CalendarWireFormat.decodeAppointments(CalendarWireFormat.encode(appointments)));
+        assertEquals(List.of(), CalendarWireFormat.decodeAvailabilities(CalendarWireFormat.encode(List.of())));
+        assertThrows(IllegalArgumentException.class, () -> CalendarWireFormat.decodeAvailabilities(CalendarWireFormat.encode(appointments)));
+    }
+
+    @Test
+    void rejectsDatesWithSeconds() {
+        List<Availability> availabilities = List.of(Availability.builder().id(1).practitionerId(practitioner_id)
+                .startDate(START_DATE.plusSeconds(30)).endDate(START_DATE.plusMinutes(15)).build());
+
+        assertThrows(IllegalArgumentException.class, () -> CalendarWireFormat.encode(availabilities));
+    }
+}
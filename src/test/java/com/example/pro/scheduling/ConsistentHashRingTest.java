@@ -0,0 +1,40 @@
+package com.example.pro.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTest {
+    private static final int PRACTITIONERS = 30_000;
+
+    @Test
+    void practitionersAreSpreadEvenlyAndOnlyTheJoiningNodeShareMoves() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("http://node-a:8080", "http://node-b:8080", "http://node-c:8080"), 128);
+        Map<String, Integer> load = new HashMap<>();
+        for (int id = 1; id <= PRACTITIONERS; id++) {
+            load.merge(ring.owner(id), 1, Integer::sum);
+        }
+        assertEquals(3, load.size());
+        load.values().forEach(count -> assertTrue(Math.abs(count - PRACTITIONERS / 3) < PRACTITIONERS / 3 / 5, load.toString()));
+
+        ConsistentHashRing joined = ring.with("http://node-d:8080");
+        int moved = 0;
+        for (int id = 1; id <= PRACTITIONERS; id++) {
+            if (!ring.owner(id).equals(joined.owner(id))) {
+                assertEquals("http://node-d:8080", joined.owner(id));
+                moved++;
+            }
+        }
+        assertTrue(Math.abs(moved - PRACTITIONERS / 4) < PRACTITIONERS / 4 / 5, String.valueOf(moved));
+
+        ConsistentHashRing left = joined.without("http://node-d:8080");
+        for (int id = 1; id <= PRACTITIONERS; id++) {
+            assertEquals(ring.owner(id), left.owner(id));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.pro.scheduling;
+
+import com.example.pro.EntityFactory;
+import com.example.pro.entity.ScheduleRule;
+import com.example.pro.entity.TimeSlot;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RecurrenceExpanderTest {
+    private final EntityFactory entityFactory = new EntityFactory();
+    private final static Integer practitioner_id = 1;
+    // a monday
+    private final static LocalDate monday = LocalDate.of(2021, Month.FEBRUARY, 8);
+
+    @Test
+    void weekdaysOnlyInsideTheWindow() {
+        ScheduleRule rule = entityFactory.createScheduleRule(practitioner_id, EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY),
+                LocalTime.of(9, 0), LocalTime.of(17, 0), monday);
+
+        List<TimeSlot> occurrences = RecurrenceExpander.expand(List.of(rule), monday.plusDays(3).atStartOfDay(), monday.plusDays(8).atStartOfDay());
+
+        assertEquals(List.of(monday.plusDays(3), monday.plusDays(4), monday.plusDays(7)),
+                occurrences.stream().map(occurrence -> occurrence.getStartDate().toLocalDate()).collect(Collectors.toList()));
+        assertEquals(monday.plusDays(3).atTime(17, 0), occurrences.get(0).getEndDate());
+    }
+
+    @Test
+    void intervalExceptionsAndValidity() {
+        ScheduleRule rule = entityFactory.createScheduleRule(practitioner_id, EnumSet.of(DayOfWeek.WEDNESDAY),
+                LocalTime.of(9, 0), LocalTime.of(12, 0), monday);
+        rule.setIntervalWeeks(2);
+        rule.setValidUntil(monday.plusWeeks(8));
+        rule.getExceptionDates().add(monday.plusWeeks(2).plusDays(2));
+
+        List<TimeSlot> occurrences = RecurrenceExpander.expand(List.of(rule), monday.minusWeeks(4).atStartOfDay(), monday.plusWeeks(20).atStartOfDay());
+
+        assertEquals(List.of(monday.plusDays(2), monday.plusWeeks(4).plusDays(2), monday.plusWeeks(6).plusDays(2)),
+                occurrences.stream().map(occurrence -> occurrence.getStartDate().toLocalDate()).collect(Collectors.toList()));
+    }
+
+    @Test
+    void overnightOccurrenceStartedTheDayBeforeTheWindow() {
+        ScheduleRule rule = entityFactory.createScheduleRule(practitioner_id, EnumSet.of(DayOfWeek.MONDAY),
+                LocalTime.of(22, 0), LocalTime.of(6, 0), monday);
+
+        List<TimeSlot> occurrences = RecurrenceExpander.expand(List.of(rule), monday.plusDays(1).atTime(2, 0), monday.plusDays(1).atTime(3, 0));
+
+        assertEquals(1, occurrences.size());
+        assertEquals(monday.atTime(22, 0), occurrences.get(0).getStartDate());
+        assertEquals(LocalDateTime.of(monday.plusDays(1), LocalTime.of(6, 0)), occurrences.get(0).getEndDate());
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.pro.scheduling;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SchedulingJournalTest {
+    private static final LocalDateTime START_DATE = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void entriesSurviveReopeningAcrossSegments() throws IOException {
+        SchedulingJournal journal = new SchedulingJournal(directory.toString(), 4, false);
+        for (int id = 1; id <= 10; id++) {
+            journal.appointmentChanged(7, id, START_DATE.plusMinutes(id), START_DATE.plusMinutes(id + 15));
+        }
+        journal.calendarChanged(8);
+        journal.close();
+
+        SchedulingJournal reopened = new SchedulingJournal(directory.toString(), 4, false);
+        assertEquals(12, reopened.replayFrom());
+        List<JournalEntry> entries = reopened.readFrom(3);
+        assertEquals(9, entries.size());
+        assertEquals(3, entries.get(0).getSequence());
+        assertEquals(JournalEntry.Type.APPOINTMENT, entries.get(0).getType());
+        assertEquals(Integer.valueOf(3), entries.get(0).getEntityId());
+        assertEquals(START_DATE.plusMinutes(3), entries.get(0).getStartDate());
+        assertEquals(START_DATE.plusMinutes(18), entries.get(0).getEndDate());
+        assertEquals(JournalEntry.Type.CALENDAR, entries.get(8).getType());
+        assertEquals(Integer.valueOf(8), entries.get(8).getPractitionerId());
+        assertNull(entries.get(8).getStartDate());
+
+        reopened.truncateBefore(10);
+        assertEquals(1, segmentCount());
+        assertEquals(9, reopened.readFrom(1).get(0).getSequence());
+        reopened.close();
+    }
+
+    @Test
+    void aTornRecordEndsTheJournal() throws IOException {
+        SchedulingJournal journal = new SchedulingJournal(directory.toString(), 16, false);
+        for (int id = 1; id <= 3; id++) {
+            journal.timeSlotChanged(7, id, START_DATE, START_DATE.plusHours(1));
+        }
+        journal.close();
+        try (Stream<Path> files = Files.list(directory);
+             FileChannel segment = FileChannel.open(files.findFirst().orElseThrow(), StandardOpenOption.WRITE)) {
+            segment.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), 2L * SchedulingJournal.RECORD_SIZE + 30);
+        }
+
+        SchedulingJournal reopened = new SchedulingJournal(directory.toString(), 16, false);
+        assertEquals(List.of(1L, 2L), reopened.readFrom(1).stream().map(JournalEntry::getSequence).collect(Collectors.toList()));
+        reopened.timeSlotChanged(7, 4, START_DATE, START_DATE.plusHours(1));
+        assertEquals(Integer.valueOf(4), reopened.readFrom(3).get(0).getEntityId());
+        reopened.close();
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
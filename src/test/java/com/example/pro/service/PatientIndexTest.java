@@ -0,0 +1,74 @@
+package com.example.pro.service;
+
+import com.example.pro.entity.Patient;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PatientIndexTest {
+
+    private final List<Patient> patients = List.of(
+            patient(1, "Jean-Pierre", "Dupont", LocalDate.of(1985, 3, 14)),
+            patient(2, "Hélène", "Dupond", LocalDate.of(1990, 7, 1)),
+            patient(3, "Marie", "Durand", LocalDate.of(1985, 11, 2)),
+            patient(4, "Marc", "Le Gall", null),
+            patient(5, "Pierre", "Martin", LocalDate.of(1985, 3, 14)));
+
+    @Test
+    void namesMatchByPrefixWithoutAccentsOrWithTypos() {
+        PatientIndex index = load();
+
+        assertEquals(List.of(2, 1, 3), ids(index.search("du", 10)));
+        assertEquals(List.of(1, 2), ids(index.search("dupont", 10)));
+        assertEquals(List.of(2), ids(index.search("helene dup", 10)));
+        assertEquals(List.of(1), ids(index.search("dupnot", 10)));
+        assertEquals(List.of(4), ids(index.search("legall", 10)));
+        assertEquals(List.of(1, 5), ids(index.search("pierre", 10)));
+        assertEquals(List.of(1), ids(index.search("pierre dupont", 10)));
+        assertEquals(List.of(2), ids(index.search("du", 1)));
+        assertTrue(index.search("zzz", 10).isEmpty());
+    }
+
+    @Test
+    void birthDatesAndYearsFilterTheMatches() {
+        PatientIndex index = load();
+
+        assertEquals(List.of(1, 5), ids(index.search("14/03/1985", 10)));
+        assertEquals(List.of(1, 5), ids(index.search("1985-03-14", 10)));
+        assertEquals(List.of(3), ids(index.search("ma 1985-11-02", 10)));
+        assertEquals(List.of(1, 3), ids(index.search("du 1985", 10)));
+    }
+
+    @Test
+    void writesAreSearchableOnceApplied() {
+        PatientIndex index = load();
+
+        index.put(patient(3, "Marie", "Moreau", LocalDate.of(1985, 11, 2)));
+        index.put(patient(6, "Zoé", "Durand", null));
+        index.remove(5);
+
+        assertEquals(List.of(6), ids(index.search("durand", 10)));
+        assertEquals(List.of(3), ids(index.search("moreau", 10)));
+        assertTrue(index.search("martin", 10).isEmpty());
+        assertEquals(5, index.size());
+    }
+
+    private PatientIndex load() {
+        PatientIndex index = new PatientIndex();
+        index.load(action -> patients.forEach(action));
+        return index;
+    }
+
+    private static List<Integer> ids(List<Patient> patients) {
+        return patients.stream().map(Patient::getId).collect(Collectors.toList());
+    }
+
+    private static Patient patient(int id, String firstName, String lastName, LocalDate birthDate) {
+        return Patient.builder().id(id).firstName(firstName).lastName(lastName).birthDate(birthDate).build();
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.pro.service;
+
+import com.example.pro.EntityFactory;
+import com.example.pro.entity.Appointment;
+import com.example.pro.entity.Availability;
+import com.example.pro.entity.Practitioner;
+import com.example.pro.entity.ScheduleRule;
+import com.example.pro.entity.TimeSlot;
+import com.example.pro.exception.SlotUnavailableException;
+import com.example.pro.repository.PractitionerRepository;
+import com.example.pro.repository.TimeSlotRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class ProAppointmentServiceTest {
+    private final EntityFactory entityFactory = new EntityFactory();
+    private final static Integer patient_id = 657679;
+
+    @Autowired
+    private ProAppointmentService proAppointmentService;
+
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Autowired
+    private ProScheduleRuleService proScheduleRuleService;
+
+    @Autowired
+    private ProTimeSlotService proTimeSlotService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void bookConsumesAvailabilities() throws Exception {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusHours(1)));
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+
+        proAppointmentService.book(entityFactory.createAppointment(practitioner.getId(), patient_id, startDate.plusMinutes(15), startDate.plusMinutes(45)));
+
+        List<LocalDateTime> availabilitiesStartDate = proAvailabilityService.findByPractitionerId(practitioner.getId()).stream()
+                .map(Availability::getStartDate).collect(Collectors.toList());
+        assertEquals(List.of(startDate, startDate.plusMinutes(45)), availabilitiesStartDate);
+        assertThrows(SlotUnavailableException.class, () -> proAppointmentService.book(
+                entityFactory.createAppointment(practitioner.getId(), patient_id, startDate.plusMinutes(30), startDate.plusMinutes(45))));
+    }
+
+    @Test
+    void bookingIsTimedThroughEachOfItsSteps() throws Exception {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusHours(1)));
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+        long booked = timerCount("appointment.book");
+        long saved = timerCount("appointment.save");
+        long regenerated = timerCount("availability.regenerate");
+
+        proAppointmentService.book(entityFactory.createAppointment(practitioner.getId(), patient_id, startDate, startDate.plusMinutes(15)));
+
+        assertEquals(booked + 1, timerCount("appointment.book"));
+        assertEquals(saved + 1, timerCount("appointment.save"));
+        assertEquals(regenerated + 1, timerCount("availability.regenerate"));
+    }
+
+    @Test
+    void cancellationFreesTheSlotForTheNextBooking() throws Exception {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusHours(1)));
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+
+        Appointment booked = proAppointmentService.book(entityFactory.createAppointment(practitioner.getId(), patient_id, startDate, startDate.plusMinutes(30)));
+        assertEquals(List.of(booked.getId()), proAvailabilityService.appointmentIntervals(practitioner.getId()).containing(startDate.plusMinutes(10))
+                .stream().map(Appointment::getId).collect(Collectors.toList()));
+        assertThrows(SlotUnavailableException.class, () -> proAppointmentService.book(
+                entityFactory.createAppointment(practitioner.getId(), patient_id, startDate.plusMinutes(15), startDate.plusMinutes(30))));
+
+        proAppointmentService.delete(booked);
+
+        proAppointmentService.book(entityFactory.createAppointment(practitioner.getId(), patient_id, startDate.plusMinutes(15), startDate.plusMinutes(30)));
+        assertEquals(1, proAvailabilityService.appointmentIntervals(practitioner.getId()).size());
+    }
+
+    @Test
+    void concurrentBookingsOfTheSameSlotSucceedOnce() throws Exception {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusHours(1)));
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Appointment>> bookings = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            bookings.add(() -> proAppointmentService.book(
+                    entityFactory.createAppointment(practitioner.getId(), patient_id, startDate, startDate.plusMinutes(15))));
+        }
+        int booked = 0;
+        for (Future<Appointment> booking : executor.invokeAll(bookings)) {
+            try {
+                booking.get();
+                booked++;
+            } catch (ExecutionException e) {
+                assertEquals(SlotUnavailableException.class, e.getCause().getClass());
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, booked);
+        assertEquals(1, proAppointmentService.findByPractitionerId(practitioner.getId()).size());
+    }
+
+    @Test
+    void bookingsDuringScheduleRuleChangesAreKept() throws Exception {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDate today = LocalDate.now();
+        proScheduleRuleService.save(entityFactory.createScheduleRule(practitioner.getId(), EnumSet.allOf(DayOfWeek.class),
+                LocalTime.of(9, 0), LocalTime.of(12, 0), today));
+        LocalDateTime startDate = today.plusDays(1).atTime(9, 0);
+
+        List<Callable<Object>> changes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            LocalDateTime slot = startDate.plusMinutes(15 * i);
+            changes.add(() -> proAppointmentService.book(entityFactory.createAppointment(practitioner.getId(), patient_id, slot, slot.plusMinutes(15))));
+            changes.add(() -> {
+                ScheduleRule afternoon = proScheduleRuleService.save(entityFactory.createScheduleRule(practitioner.getId(), EnumSet.allOf(DayOfWeek.class),
+                        LocalTime.of(11, 0), LocalTime.of(14, 0), today));
+                proScheduleRuleService.delete(afternoon.getId());
+                return afternoon;
+            });
+        }
+        runConcurrently(changes);
+
+        assertCalendarMatchesItsAppointments(practitioner, startDate, 8);
+    }
+
+    @Test
+    void bookingsDuringTimeSlotChangesAreKept() throws Exception {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.FEBRUARY, 5, 9, 0, 0);
+        proTimeSlotService.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusHours(3)));
+
+        List<Callable<Object>> changes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            LocalDateTime slot = startDate.plusMinutes(15 * i);
+            changes.add(() -> proAppointmentService.book(entityFactory.createAppointment(practitioner.getId(), patient_id, slot, slot.plusMinutes(15))));
+            changes.add(() -> {
+                TimeSlot afternoon = proTimeSlotService.save(entityFactory.createTimeSlot(practitioner.getId(), startDate.plusHours(2), startDate.plusHours(5)));
+                proTimeSlotService.delete(afternoon);
+                return afternoon;
+            });
+        }
+        runConcurrently(changes);
+
+        assertCalendarMatchesItsAppointments(practitioner, startDate, 8);
+    }
+
+    private long timerCount(String operation) {
+        // one timer per exception tag
+        return meterRegistry.find("pro.scheduling").tag("operation", operation).timers().stream().mapToLong(Timer::count).sum();
+    }
+
+    private static void runConcurrently(List<Callable<Object>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            // every booking targets a free slot and every change leaves it free, so all of them succeed
+            for (Future<Object> task : executor.invokeAll(tasks)) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void assertCalendarMatchesItsAppointments(Practitioner practitioner, LocalDateTime startDate, int bookedSlots) {
+        List<LocalDateTime> stored = proAvailabilityService.findByPractitionerId(practitioner.getId()).stream()
+                .map(Availability::getStartDate).sorted().collect(Collectors.toList());
+        for (int i = 0; i < bookedSlots; i++) {
+            assertFalse(stored.contains(startDate.plusMinutes(15 * i)));
+        }
+        assertEquals(bookedSlots, proAppointmentService.findByPractitionerId(practitioner.getId()).size());
+        assertEquals(proAvailabilityService.generateAvailabilities(practitioner.getId()).stream()
+                .map(Availability::getStartDate).sorted().collect(Collectors.toList()), stored);
+    }
+}
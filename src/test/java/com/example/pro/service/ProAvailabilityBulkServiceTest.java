@@ -0,0 +1,135 @@
+package com.example.pro.service;
+
+import com.example.pro.EntityFactory;
+import com.example.pro.entity.Availability;
+import com.example.pro.entity.Practitioner;
+import com.example.pro.repository.AppointmentRepository;
+import com.example.pro.repository.AvailabilityRepository;
+import com.example.pro.repository.PractitionerRepository;
+import com.example.pro.repository.TimeSlotRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ProAvailabilityBulkServiceTest {
+    private final EntityFactory entityFactory = new EntityFactory();
+    private final static Integer patient_id = 657679;
+
+    @Autowired
+    private ProAvailabilityBulkService proAvailabilityBulkService;
+
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private ProAppointmentService proAppointmentService;
+
+    @Autowired
+    private ProScheduleRuleService proScheduleRuleService;
+
+    @Autowired
+    private AvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Test
+    void regenerateAllMatchesPerPractitionerGeneration() {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusHours(1)));
+        appointmentRepository.save(entityFactory.createAppointment(practitioner.getId(),
+                patient_id,
+                startDate.plusMinutes(15),
+                startDate.plusMinutes(35)));
+
+        AvailabilityGenerationProgress progress = proAvailabilityBulkService.regenerateAll();
+
+        assertFalse(progress.isRunning());
+        assertNull(progress.getError());
+        assertEquals(progress.getTotalPractitioners(), progress.getProcessedPractitioners());
+        List<LocalDateTime> bulkStartDate = proAvailabilityService.findByPractitionerId(practitioner.getId()).stream()
+                .map(Availability::getStartDate).sorted().collect(Collectors.toList());
+        List<LocalDateTime> expectedStartDate = proAvailabilityService.generateAvailabilities(practitioner.getId()).stream()
+                .map(Availability::getStartDate).collect(Collectors.toList());
+        assertEquals(expectedStartDate, bulkStartDate);
+    }
+
+    @Test
+    void batchInsertedIdsDoNotCollideWithEntityIds() {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.MARCH, 2, 8, 0, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusHours(3)));
+        proAvailabilityBulkService.regenerateAll();
+
+        // shifts the grid of the rest of the morning, so new rows are persisted through the entity manager
+        proAppointmentService.save(entityFactory.createAppointment(practitioner.getId(),
+                patient_id,
+                startDate.plusMinutes(10),
+                startDate.plusMinutes(20)));
+
+        List<Availability> availabilities = proAvailabilityService.findByPractitionerId(practitioner.getId());
+        assertEquals(availabilities.size(), availabilities.stream().map(Availability::getId).distinct().count());
+        assertEquals(proAvailabilityService.generateAvailabilities(practitioner.getId()), availabilities);
+    }
+
+    @Test
+    void bookingsMadeDuringARegenerationAreKept() throws Exception {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.APRIL, 6, 8, 0, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusHours(4)));
+        proAvailabilityBulkService.regenerateAll();
+
+        CompletableFuture<AvailabilityGenerationProgress> regeneration = CompletableFuture.supplyAsync(proAvailabilityBulkService::regenerateAll);
+        for (int slot = 0; slot < 16; slot += 2) {
+            proAppointmentService.book(entityFactory.createAppointment(practitioner.getId(),
+                    patient_id,
+                    startDate.plusMinutes(15 * slot),
+                    startDate.plusMinutes(15 * slot + 15)));
+        }
+        assertNull(regeneration.get().getError());
+
+        List<Availability> availabilities = proAvailabilityService.findByPractitionerId(practitioner.getId());
+        assertTrue(availabilities.stream().allMatch(availability -> availability.getStartDate().getMinute() % 30 == 15));
+        assertEquals(proAvailabilityService.generateAvailabilities(practitioner.getId()), availabilities);
+    }
+
+    @Test
+    void refreshHorizonSweepsTheLastDayOfPractitionersWithRules() throws Exception {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        proScheduleRuleService.save(entityFactory.createScheduleRule(practitioner.getId(), EnumSet.allOf(DayOfWeek.class),
+                LocalTime.of(9, 0), LocalTime.of(10, 0), LocalDate.now()));
+        LocalDateTime horizonEnd = proAvailabilityService.getHorizonEnd();
+        List<Availability> lastDay = availabilityRepository.findByPractitionerIdAndStartDateGreaterThanEqualAndStartDateLessThan(practitioner.getId(),
+                horizonEnd.minusDays(1), horizonEnd);
+        availabilityRepository.deleteAll(lastDay);
+
+        proAvailabilityBulkService.refreshHorizon();
+
+        assertEquals(4, availabilityRepository.findByPractitionerIdAndStartDateGreaterThanEqualAndStartDateLessThan(practitioner.getId(),
+                horizonEnd.minusDays(1), horizonEnd).size());
+        assertEquals(90 * 4, proAvailabilityService.findByPractitionerId(practitioner.getId()).size());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.pro.service;
+
+import com.example.pro.EntityFactory;
+import com.example.pro.entity.Availability;
+import com.example.pro.entity.FreeInterval;
+import com.example.pro.entity.Practitioner;
+import com.example.pro.repository.FreeIntervalRepository;
+import com.example.pro.repository.PractitionerRepository;
+import com.example.pro.repository.TimeSlotRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "pro.availability.storage=intervals")
+class ProAvailabilityIntervalStorageTest {
+    private final EntityFactory entityFactory = new EntityFactory();
+    private static final Integer patient_id = 657679;
+    private static final LocalDateTime START_DATE = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private ProAppointmentService proAppointmentService;
+
+    @Autowired
+    private FreeIntervalRepository freeIntervalRepository;
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Test
+    void freeTimeIsStoredAsIntervalsAndServedAsSlots() {
+        Practitioner practitioner = createPractitionerWithAppointment();
+
+        List<Availability> generated = proAvailabilityService.generateAvailabilities(practitioner.getId());
+
+        assertEquals(List.of(START_DATE, START_DATE.plusMinutes(40), START_DATE.plusMinutes(55), START_DATE.plusMinutes(70),
+                START_DATE.plusMinutes(85), START_DATE.plusMinutes(100), START_DATE.plusMinutes(115),
+                START_DATE.plusHours(3), START_DATE.plusHours(3).plusMinutes(15), START_DATE.plusHours(3).plusMinutes(30),
+                START_DATE.plusHours(3).plusMinutes(45)), startDates(generated));
+        assertEquals(START_DATE.plusHours(2), generated.get(6).getEndDate());
+        assertEquals(List.of(START_DATE, START_DATE.plusMinutes(40), START_DATE.plusHours(3)), intervalStartDates(practitioner));
+        assertEquals(startDates(generated), startDates(proAvailabilityService.findByPractitionerId(practitioner.getId())));
+
+        CalendarWindow firstWindow = CalendarWindow.builder().from(START_DATE.plusMinutes(40)).size(2).build();
+        Availability last = proAvailabilityService.findByPractitionerId(practitioner.getId(), firstWindow).get(1);
+        CalendarWindow nextWindow = CalendarWindow.builder().from(START_DATE.plusMinutes(40)).size(2)
+                .afterStartDate(last.getStartDate()).afterId(last.getId()).build();
+        assertEquals(List.of(START_DATE.plusMinutes(70), START_DATE.plusMinutes(85)),
+                startDates(proAvailabilityService.findByPractitionerId(practitioner.getId(), nextWindow)));
+    }
+
+    @Test
+    void bookingSplitsTheIntervalItFallsInto() {
+        Practitioner practitioner = createPractitionerWithAppointment();
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+
+        proAppointmentService.save(entityFactory.createAppointment(practitioner.getId(), patient_id,
+                START_DATE.plusMinutes(70), START_DATE.plusMinutes(85)));
+
+        assertEquals(List.of(START_DATE, START_DATE.plusMinutes(40), START_DATE.plusMinutes(85), START_DATE.plusHours(3)),
+                intervalStartDates(practitioner));
+        assertEquals(startDates(proAvailabilityService.generateAvailabilities(practitioner.getId())),
+                startDates(proAvailabilityService.findByPractitionerId(practitioner.getId())));
+    }
+
+    @Test
+    void firstAvailableIsCutFromTheIntervalsOfTheWindow() {
+        Practitioner practitioner = createPractitionerWithAppointment();
+        practitioner.setSpeciality("speciality-" + System.nanoTime());
+        practitionerRepository.save(practitioner);
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+
+        assertEquals(List.of(START_DATE.plusMinutes(55), START_DATE.plusMinutes(70)), startDates(proAvailabilityService
+                .findFirstAvailable(practitioner.getSpeciality(), START_DATE.plusMinutes(50), START_DATE.plusHours(4), 2)));
+    }
+
+    // working time 11H-13H and 14H-14H50, appointment 11H20-11H40
+    private Practitioner createPractitionerWithAppointment() {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), START_DATE, START_DATE.plusHours(2)));
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), START_DATE.plusHours(3), START_DATE.plusHours(3).plusMinutes(50)));
+        proAppointmentService.save(entityFactory.createAppointment(practitioner.getId(), patient_id,
+                START_DATE.plusMinutes(20), START_DATE.plusMinutes(40)));
+        return practitioner;
+    }
+
+    private List<LocalDateTime> intervalStartDates(Practitioner practitioner) {
+        return freeIntervalRepository.findByPractitionerIdOrderByStartDateAsc(practitioner.getId()).stream()
+                .map(FreeInterval::getStartDate).collect(Collectors.toList());
+    }
+
+    private static List<LocalDateTime> startDates(List<Availability> availabilities) {
+        return availabilities.stream().map(Availability::getStartDate).collect(Collectors.toList());
+    }
+}
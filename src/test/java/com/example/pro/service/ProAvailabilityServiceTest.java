@@ -1,23 +1,30 @@
 package com.example.pro.service;
 
 import com.example.pro.EntityFactory;
+import com.example.pro.entity.Appointment;
 import com.example.pro.entity.Availability;
 import com.example.pro.entity.Practitioner;
 import com.example.pro.repository.AppointmentRepository;
 import com.example.pro.repository.AvailabilityRepository;
 import com.example.pro.repository.PractitionerRepository;
 import com.example.pro.repository.TimeSlotRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.Month;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
@@ -27,6 +34,9 @@ class ProAvailabilityServiceTest {
     @Autowired
     private ProAvailabilityService proAvailabilityService;
 
+    @Autowired
+    private ProAppointmentService proAppointmentService;
+
     @Autowired
     private AppointmentRepository appointmentRepository;
 
@@ -39,6 +49,12 @@ class ProAvailabilityServiceTest {
     @Autowired
     private TimeSlotRepository timeSlotRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ProScheduleRuleService proScheduleRuleService;
+
     @Test
     void generateAvailabilities() {
         Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
@@ -196,4 +212,178 @@ class ProAvailabilityServiceTest {
         expectedStartDate.add(startDate.plusMinutes(50));
         assertTrue(availabilitiesStartDate.containsAll(expectedStartDate));
     }
+
+    @Test
+    void generateAvailabilitiesOverOverlappingTimeSlots() {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusMinutes(30)));
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate.plusMinutes(15), startDate.plusHours(1)));
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate.plusDays(1), startDate.plusDays(1).plusMinutes(30)));
+        appointmentRepository.save(entityFactory.createAppointment(practitioner.getId(),
+                patient_id,
+                startDate.plusMinutes(40),
+                startDate.plusDays(1).plusMinutes(10)));
+
+        List<Availability> availabilities = proAvailabilityService.generateAvailabilities(practitioner.getId());
+
+        List<LocalDateTime> availabilitiesStartDate = availabilities.stream().map(Availability::getStartDate).collect(Collectors.toList());
+        ArrayList<LocalDateTime> expectedStartDate = new ArrayList<>();
+        expectedStartDate.add(startDate);
+        expectedStartDate.add(startDate.plusMinutes(15));
+        expectedStartDate.add(startDate.plusDays(1).plusMinutes(10));
+        expectedStartDate.add(startDate.plusDays(1).plusMinutes(25));
+        assertEquals(expectedStartDate, availabilitiesStartDate);
+    }
+
+    @Test
+    void generateAvailabilitiesFromScheduleRuleOverTheHorizon() throws Exception {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDate today = LocalDate.now();
+        proScheduleRuleService.save(entityFactory.createScheduleRule(practitioner.getId(), EnumSet.allOf(DayOfWeek.class),
+                LocalTime.of(9, 0), LocalTime.of(10, 0), today.minusDays(10)));
+
+        List<Availability> availabilities = proAvailabilityService.findByPractitionerId(practitioner.getId());
+        assertEquals(90 * 4, availabilities.size());
+        assertEquals(today.atTime(9, 0), availabilities.get(0).getStartDate());
+
+        LocalDateTime appointmentStart = today.plusDays(3).atTime(9, 10);
+        proAppointmentService.save(entityFactory.createAppointment(practitioner.getId(), patient_id, appointmentStart, appointmentStart.plusMinutes(10)));
+
+        List<LocalDateTime> availabilitiesStartDate = proAvailabilityService.findByPractitionerId(practitioner.getId()).stream()
+                .map(Availability::getStartDate).collect(Collectors.toList());
+        List<LocalDateTime> expectedStartDate = proAvailabilityService.generateAvailabilities(practitioner.getId()).stream()
+                .map(Availability::getStartDate).collect(Collectors.toList());
+        assertEquals(expectedStartDate, availabilitiesStartDate);
+        assertEquals(90 * 4 - 1, availabilitiesStartDate.size());
+    }
+
+    @Test
+    void regenerateAvailabilitiesAfterAppointmentChanges() {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusHours(1)));
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate.plusDays(1), startDate.plusDays(1).plusHours(1)));
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+
+        Appointment appointment = proAppointmentService.save(entityFactory.createAppointment(practitioner.getId(),
+                patient_id,
+                startDate.plusMinutes(15),
+                startDate.plusMinutes(35)));
+
+        List<LocalDateTime> availabilitiesStartDate = proAvailabilityService.findByPractitionerId(practitioner.getId()).stream()
+                .map(Availability::getStartDate).sorted().collect(Collectors.toList());
+        List<LocalDateTime> expectedStartDate = proAvailabilityService.generateAvailabilities(practitioner.getId()).stream()
+                .map(Availability::getStartDate).collect(Collectors.toList());
+        assertEquals(expectedStartDate, availabilitiesStartDate);
+        assertEquals(7, availabilitiesStartDate.size());
+
+        proAppointmentService.delete(appointment);
+
+        assertEquals(8, proAvailabilityService.findByPractitionerId(practitioner.getId()).size());
+    }
+
+    @Test
+    void findAvailabilitiesByWindowAndKeysetPage() {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusHours(1)));
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate.plusDays(7), startDate.plusDays(7).plusHours(1)));
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+
+        long cachedRows = proAvailabilityService.getCacheStats().getRows();
+        CalendarWindow firstWindow = CalendarWindow.builder().from(startDate.plusMinutes(15)).to(startDate.plusDays(1)).size(2).build();
+        List<Availability> firstPage = proAvailabilityService.findByPractitionerId(practitioner.getId(), firstWindow);
+        Availability last = firstPage.get(firstPage.size() - 1);
+        CalendarWindow nextWindow = CalendarWindow.builder().from(startDate.plusMinutes(15)).to(startDate.plusDays(1)).size(2)
+                .afterStartDate(last.getStartDate()).afterId(last.getId()).build();
+        List<Availability> nextPage = proAvailabilityService.findByPractitionerId(practitioner.getId(), nextWindow);
+
+        assertEquals(List.of(startDate.plusMinutes(15), startDate.plusMinutes(30)),
+                firstPage.stream().map(Availability::getStartDate).collect(Collectors.toList()));
+        assertEquals(List.of(startDate.plusMinutes(45)),
+                nextPage.stream().map(Availability::getStartDate).collect(Collectors.toList()));
+        // read from the database, the calendar is not cached for a page
+        assertEquals(cachedRows, proAvailabilityService.getCacheStats().getRows());
+
+        assertEquals(8, proAvailabilityService.findByPractitionerId(practitioner.getId()).size());
+        assertEquals(firstPage, proAvailabilityService.findByPractitionerId(practitioner.getId(), firstWindow));
+        assertEquals(nextPage, proAvailabilityService.findByPractitionerId(practitioner.getId(), nextWindow));
+    }
+
+    @Test
+    void cachedAvailabilitiesAreInvalidatedByBookings() {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusHours(1)));
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+
+        assertEquals(4, proAvailabilityService.findByPractitionerId(practitioner.getId()).size());
+        long hits = proAvailabilityService.getCacheStats().getHits();
+        assertEquals(4, proAvailabilityService.findByPractitionerId(practitioner.getId()).size());
+        assertEquals(hits + 1, proAvailabilityService.getCacheStats().getHits());
+
+        proAppointmentService.save(entityFactory.createAppointment(practitioner.getId(),
+                patient_id,
+                startDate,
+                startDate.plusMinutes(15)));
+
+        List<LocalDateTime> availabilitiesStartDate = proAvailabilityService.findByPractitionerId(practitioner.getId()).stream()
+                .map(Availability::getStartDate).collect(Collectors.toList());
+        assertEquals(List.of(startDate.plusMinutes(15), startDate.plusMinutes(30), startDate.plusMinutes(45)), availabilitiesStartDate);
+    }
+
+    @Test
+    void findFirstAvailableAcrossPractitionersOfASpeciality() {
+        String speciality = "speciality-" + System.nanoTime();
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+        Practitioner early = entityFactory.createPractitioner();
+        early.setSpeciality(speciality);
+        early = practitionerRepository.save(early);
+        Practitioner late = entityFactory.createPractitioner();
+        late.setSpeciality(speciality);
+        late = practitionerRepository.save(late);
+        timeSlotRepository.save(entityFactory.createTimeSlot(early.getId(), startDate, startDate.plusMinutes(30)));
+        timeSlotRepository.save(entityFactory.createTimeSlot(late.getId(), startDate.plusMinutes(20), startDate.plusHours(1)));
+        proAvailabilityService.generateAvailabilities(early.getId());
+        proAvailabilityService.generateAvailabilities(late.getId());
+        // one calendar is cached, the other one is read with the windowed query
+        proAvailabilityService.findByPractitionerId(late.getId());
+
+        List<Availability> firstAvailable = proAvailabilityService.findFirstAvailable(speciality, startDate.plusMinutes(10), startDate.plusDays(1), 3);
+
+        assertEquals(List.of(startDate.plusMinutes(15), startDate.plusMinutes(20), startDate.plusMinutes(35)),
+                firstAvailable.stream().map(Availability::getStartDate).collect(Collectors.toList()));
+        assertEquals(List.of(early.getId(), late.getId(), late.getId()),
+                firstAvailable.stream().map(Availability::getPractitionerId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void generationIsTimedAndCountsWrittenRows() {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.APRIL, 6, 9, 0, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusHours(1)));
+        long generations = meterRegistry.get("pro.scheduling").tag("operation", "availability.generate").timer().count();
+        double writtenRows = meterRegistry.get("pro.availability.rows").tag("change", "written").summary().totalAmount();
+
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+
+        assertEquals(generations + 1, meterRegistry.get("pro.scheduling").tag("operation", "availability.generate").timer().count());
+        assertEquals(writtenRows + 4, meterRegistry.get("pro.availability.rows").tag("change", "written").summary().totalAmount());
+    }
+
+    @Test
+    void calendarVersionChangesOnlyWithTheCalendar() {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.MAY, 4, 9, 0, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusHours(1)));
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+        String version = proAvailabilityService.getCalendarVersion(practitioner.getId());
+
+        proAvailabilityService.findByPractitionerId(practitioner.getId());
+        assertEquals(version, proAvailabilityService.getCalendarVersion(practitioner.getId()));
+
+        proAppointmentService.save(entityFactory.createAppointment(practitioner.getId(), patient_id, startDate, startDate.plusMinutes(15)));
+        assertNotEquals(version, proAvailabilityService.getCalendarVersion(practitioner.getId()));
+    }
 }
@@ -0,0 +1,109 @@
+package com.example.pro.service;
+
+import com.example.pro.EntityFactory;
+import com.example.pro.entity.Availability;
+import com.example.pro.entity.Practitioner;
+import com.example.pro.repository.AppointmentRepository;
+import com.example.pro.repository.PractitionerRepository;
+import com.example.pro.repository.TimeSlotRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class ProImportServiceTest {
+    private final EntityFactory entityFactory = new EntityFactory();
+    private static final Integer patient_id = 657679;
+
+    @Autowired
+    private ProImportService proImportService;
+
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private ProAppointmentService proAppointmentService;
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Test
+    void importTimeSlotsFromCsvAndRegenerateTouchedPractitioners() throws Exception {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        String csv = "practitionerId,startDate,endDate\n"
+                + practitioner.getId() + ",2020-06-01T09:00:00,2020-06-01T10:00:00\n"
+                + "\"" + practitioner.getId() + "\",2020-06-02T09:00:00,2020-06-02T09:30:00\n"
+                + practitioner.getId() + ",2020-06-03T10:00:00,2020-06-03T09:00:00\n"
+                + "-1,2020-06-04T09:00:00,2020-06-04T10:00:00\n"
+                + practitioner.getId() + ",not a date,2020-06-04T10:00:00\n";
+
+        ImportReport report = proImportService.importRows(ImportType.TIME_SLOTS, ProImportService.Format.CSV,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(5, report.getReadRows());
+        assertEquals(2, report.getImportedRows());
+        assertEquals(3, report.getRejectedRows());
+        assertEquals(List.of(4L, 5L, 6L), report.getErrors().stream().map(error -> Long.parseLong(error.split("[ :]")[1])).collect(Collectors.toList()));
+        assertEquals(1, report.getRegeneratedPractitioners());
+        List<Availability> availabilities = proAvailabilityService.findByPractitionerId(practitioner.getId());
+        assertEquals(6, availabilities.size());
+        assertEquals(LocalDateTime.of(2020, Month.JUNE, 1, 9, 0), availabilities.get(0).getStartDate());
+    }
+
+    @Test
+    void importAppointmentsRejectsOverlapsWithBookingsAndEarlierRows() throws Exception {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime start = LocalDateTime.of(2020, Month.JUNE, 8, 9, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), start, start.plusHours(2)));
+        proAppointmentService.book(entityFactory.createAppointment(practitioner.getId(), patient_id, start, start.plusMinutes(30)));
+        String ndjson = appointmentLine(practitioner, start.plusMinutes(15), start.plusMinutes(45))
+                + appointmentLine(practitioner, start.plusMinutes(30), start.plusMinutes(60))
+                + appointmentLine(practitioner, start.plusMinutes(45), start.plusMinutes(75))
+                + appointmentLine(practitioner, start.plusMinutes(60), start.plusMinutes(90));
+
+        ImportReport report = proImportService.importRows(ImportType.APPOINTMENTS, ProImportService.Format.NDJSON,
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, report.getImportedRows());
+        assertEquals(List.of("line 1: " + ImportType.OVERLAPPING_APPOINTMENT, "line 3: " + ImportType.OVERLAPPING_APPOINTMENT), report.getErrors());
+        assertEquals(1, report.getRegeneratedPractitioners());
+        assertEquals(3, appointmentRepository.findByPractitionerId(practitioner.getId()).size());
+        assertEquals(List.of(start.plusMinutes(90), start.plusMinutes(105)), proAvailabilityService.findByPractitionerId(practitioner.getId()).stream()
+                .map(Availability::getStartDate).collect(Collectors.toList()));
+    }
+
+    @Test
+    void importPractitionersFromNdjson() throws Exception {
+        String ndjson = "{\"firstName\":\"Ada\",\"lastName\":\"Lovelace\",\"speciality\":\"imported\"}\n"
+                + "\n"
+                + "{\"firstName\":\"Charles\"}\n"
+                + "{\"firstName\":\"Alan\",\"lastName\":\"Turing\",\"speciality\":\"imported\"}\n";
+
+        ImportReport report = proImportService.importRows(ImportType.PRACTITIONERS, ProImportService.Format.NDJSON,
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, report.getImportedRows());
+        assertEquals(1, report.getRejectedRows());
+        assertEquals(2, practitionerRepository.findIdsBySpeciality("imported").size());
+    }
+
+    private static String appointmentLine(Practitioner practitioner, LocalDateTime startDate, LocalDateTime endDate) {
+        return "{\"practitionerId\":" + practitioner.getId() + ",\"patientId\":" + patient_id
+                + ",\"startDate\":\"" + startDate + "\",\"endDate\":\"" + endDate + "\"}\n";
+    }
+}
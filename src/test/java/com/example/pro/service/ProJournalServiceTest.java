@@ -0,0 +1,94 @@
+package com.example.pro.service;
+
+import com.example.pro.EntityFactory;
+import com.example.pro.entity.Availability;
+import com.example.pro.entity.Practitioner;
+import com.example.pro.repository.PractitionerRepository;
+import com.example.pro.repository.TimeSlotRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ProJournalServiceTest {
+    private final EntityFactory entityFactory = new EntityFactory();
+    private static final Integer patient_id = 657679;
+    private static final LocalDateTime START_DATE = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+
+    @DynamicPropertySource
+    static void journalDirectory(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("journal").toString();
+        registry.add("pro.journal.directory", () -> directory);
+    }
+
+    @Autowired
+    private ProJournalService proJournalService;
+
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private ProAppointmentService proAppointmentService;
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void recoveryReplaysTheChangesMadeAfterTheSnapshot() {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), START_DATE, START_DATE.plusHours(2)));
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+        proJournalService.snapshot();
+
+        proAppointmentService.save(entityFactory.createAppointment(practitioner.getId(), patient_id,
+                START_DATE.plusMinutes(20), START_DATE.plusMinutes(40)));
+        List<LocalDateTime> expected = startDates(proAvailabilityService.findByPractitionerId(practitioner.getId()));
+        assertFalse(expected.contains(START_DATE.plusMinutes(15)));
+
+        assertTrue(proJournalService.recover());
+
+        assertEquals(expected, startDates(proAvailabilityService.findByPractitionerId(practitioner.getId())));
+        assertEquals(expected, startDates(proAvailabilityService.generateAvailabilities(practitioner.getId())));
+    }
+
+    @Test
+    void recoveryRestoresTheCalendarsMissingFromTheTables() {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), START_DATE.plusDays(1), START_DATE.plusDays(1).plusHours(2)));
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+        proJournalService.snapshot();
+        proAppointmentService.save(entityFactory.createAppointment(practitioner.getId(), patient_id,
+                START_DATE.plusDays(1).plusMinutes(20), START_DATE.plusDays(1).plusMinutes(40)));
+        List<LocalDateTime> expected = startDates(proAvailabilityService.findByPractitionerId(practitioner.getId()));
+
+        // lost outside of any transaction, so only the snapshot and the journal tail still hold the calendar
+        jdbcTemplate.update("delete from availability where practitioner_id = ?", practitioner.getId());
+        assertTrue(proJournalService.recover());
+
+        assertEquals(expected, startDates(proAvailabilityService.findByPractitionerId(practitioner.getId())));
+    }
+
+    private static List<LocalDateTime> startDates(List<Availability> availabilities) {
+        return availabilities.stream().map(Availability::getStartDate).sorted().collect(Collectors.toList());
+    }
+}
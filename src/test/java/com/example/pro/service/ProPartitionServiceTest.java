@@ -0,0 +1,184 @@
+package com.example.pro.service;
+
+import com.example.pro.EntityFactory;
+import com.example.pro.ProApplication;
+import com.example.pro.configuration.PartitionRoutingFilter;
+import com.example.pro.entity.Practitioner;
+import com.example.pro.entity.ScheduleRule;
+import com.example.pro.repository.PractitionerRepository;
+import com.example.pro.repository.TimeSlotRepository;
+import com.example.pro.scheduling.PractitionerPartitions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs two nodes sharing one in-memory database: this test's context and a second application started on another
+ * port, which owns the practitioners hashed to it. Requests are sent to the first node.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+class ProPartitionServiceTest {
+    private final EntityFactory entityFactory = new EntityFactory();
+    private static final Integer patient_id = 657679;
+    private static final LocalDateTime START_DATE = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+    private static final String DATABASE_URL = "jdbc:h2:mem:partitions;DB_CLOSE_DELAY=-1";
+    private static String self;
+    private static String peer;
+    private static ConfigurableApplicationContext peerNode;
+
+    @DynamicPropertySource
+    static void partitions(DynamicPropertyRegistry registry) throws IOException {
+        int port = freePort();
+        self = "http://localhost:" + port;
+        peer = "http://localhost:" + freePort();
+        registry.add("server.port", () -> port);
+        registry.add("spring.datasource.url", () -> DATABASE_URL);
+        registry.add("pro.partition.self", () -> self);
+        registry.add("pro.partition.nodes", () -> self + "," + peer);
+    }
+
+    @Autowired
+    private ProPartitionService proPartitionService;
+
+    @Autowired
+    private PractitionerPartitions practitionerPartitions;
+
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private ProAvailabilityBulkService proAvailabilityBulkService;
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @BeforeEach
+    void startPeer() {
+        // started once the schema of the first node exists
+        if (peerNode == null) {
+            peerNode = new SpringApplicationBuilder(ProApplication.class).run(
+                    "--server.port=" + peer.substring(peer.lastIndexOf(':') + 1),
+                    "--spring.datasource.url=" + DATABASE_URL,
+                    "--spring.jpa.hibernate.ddl-auto=none",
+                    "--pro.partition.self=" + peer,
+                    "--pro.partition.nodes=" + self + "," + peer);
+        }
+    }
+
+    @AfterAll
+    static void stopPeer() {
+        if (peerNode != null) {
+            peerNode.close();
+        }
+    }
+
+    @Test
+    void requestsForAPractitionerOfAnotherNodeAreForwardedUntilItLeaves() {
+        Practitioner practitioner = remotePractitioner();
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), START_DATE, START_DATE.plusHours(1)));
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+
+        ResponseEntity<String> availabilities = restTemplate.getForEntity("/availabilities?practitionerId=" + practitioner.getId(), String.class);
+        assertEquals(HttpStatus.OK, availabilities.getStatusCode());
+        assertEquals(peer, availabilities.getHeaders().getFirst(PartitionRoutingFilter.NODE_HEADER));
+        assertTrue(availabilities.getBody().contains(START_DATE.toString()));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String appointment = "{\"practitionerId\":" + practitioner.getId() + ",\"patientId\":" + patient_id
+                + ",\"startDate\":\"" + START_DATE + "\",\"endDate\":\"" + START_DATE.plusMinutes(15) + "\"}";
+        ResponseEntity<String> booked = restTemplate.postForEntity("/appointments", new HttpEntity<>(appointment, headers), String.class);
+        assertEquals(HttpStatus.CREATED, booked.getStatusCode());
+        assertEquals(peer, booked.getHeaders().getFirst(PartitionRoutingFilter.NODE_HEADER));
+        assertEquals(HttpStatus.CONFLICT, restTemplate.postForEntity("/appointments", new HttpEntity<>(appointment, headers), String.class).getStatusCode());
+
+        try {
+            PartitionStatus status = proPartitionService.leave(peer + "/");
+            assertEquals(1, status.getNodes().size());
+            assertTrue(status.getMovedPractitioners() > 0);
+            assertEquals(status.getPractitioners(), status.getOwnedPractitioners());
+            assertNull(restTemplate.getForEntity("/availabilities?practitionerId=" + practitioner.getId(), String.class)
+                    .getHeaders().getFirst(PartitionRoutingFilter.NODE_HEADER));
+        } finally {
+            proPartitionService.join(peer);
+        }
+    }
+
+    @Test
+    void writesServedForAPractitionerOfAnotherNodeReachItsOwner() {
+        Practitioner practitioner = remotePractitioner();
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), START_DATE, START_DATE.plusHours(1)));
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+        // cached by the owner
+        assertTrue(availabilitiesOnOwner(practitioner).contains(START_DATE.toString()));
+
+        LocalDateTime nextDay = START_DATE.plusDays(1);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), nextDay, nextDay.plusHours(1)));
+        assertEquals(0, proAvailabilityBulkService.regenerate(List.of(practitioner.getId())).getTotalPractitioners());
+        assertTrue(availabilitiesOnOwner(practitioner).contains(nextDay.toString()));
+
+        LocalDate today = LocalDate.now();
+        ResponseEntity<ScheduleRule> rule = restTemplate.postForEntity("/schedule-rules", entityFactory.createScheduleRule(practitioner.getId(),
+                EnumSet.allOf(DayOfWeek.class), LocalTime.of(9, 0), LocalTime.of(10, 0), today), ScheduleRule.class);
+        assertEquals(HttpStatus.CREATED, rule.getStatusCode());
+        assertEquals(peer, rule.getHeaders().getFirst(PartitionRoutingFilter.NODE_HEADER));
+        assertTrue(availabilitiesOnOwner(practitioner).contains(today.atTime(9, 0).toString()));
+
+        // served by this node, which evicts the calendar cached by the owner
+        restTemplate.delete("/schedule-rules/" + rule.getBody().getId());
+        assertFalse(availabilitiesOnOwner(practitioner).contains(today.atTime(9, 0).toString()));
+    }
+
+    private Practitioner remotePractitioner() {
+        Practitioner practitioner;
+        do {
+            practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        } while (practitionerPartitions.isLocal(practitioner.getId()));
+        return practitioner;
+    }
+
+    private String availabilitiesOnOwner(Practitioner practitioner) {
+        ResponseEntity<String> availabilities = restTemplate.getForEntity("/availabilities?practitionerId=" + practitioner.getId(), String.class);
+        assertEquals(peer, availabilities.getHeaders().getFirst(PartitionRoutingFilter.NODE_HEADER));
+        return availabilities.getBody();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
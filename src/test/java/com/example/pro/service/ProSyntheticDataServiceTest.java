@@ -0,0 +1,70 @@
+package com.example.pro.service;
+
+import com.example.pro.entity.Appointment;
+import com.example.pro.entity.TimeSlot;
+import com.example.pro.repository.AppointmentRepository;
+import com.example.pro.repository.PractitionerRepository;
+import com.example.pro.repository.TimeSlotRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ProSyntheticDataServiceTest {
+
+    @Autowired
+    private ProSyntheticDataService proSyntheticDataService;
+
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Test
+    void generateReproducibleCalendarsWithAppointmentsInsideWorkingHours() {
+        SyntheticDataSpec spec = SyntheticDataSpec.builder().practitioners(5).patientsPerPractitioner(2).days(14)
+                .bookingRate(0.4).seed(7).startDate(LocalDate.of(2030, 1, 7)).build();
+
+        List<ImportReport> first = proSyntheticDataService.generate(spec);
+        List<Integer> practitionerIds = lastIds(5);
+        List<ImportReport> second = proSyntheticDataService.generate(spec);
+
+        assertEquals(List.of(5L, 10L), List.of(first.get(0).getImportedRows(), first.get(1).getImportedRows()));
+        assertEquals(first.stream().map(ImportReport::getImportedRows).collect(Collectors.toList()),
+                second.stream().map(ImportReport::getImportedRows).collect(Collectors.toList()));
+        assertTrue(first.get(3).getImportedRows() > 0);
+
+        for (Integer practitionerId : practitionerIds) {
+            List<TimeSlot> timeSlots = timeSlotRepository.findByPractitionerId(practitionerId);
+            assertFalse(timeSlots.isEmpty());
+            assertTrue(timeSlots.stream().noneMatch(timeSlot -> timeSlot.getStartDate().getDayOfWeek() == DayOfWeek.SATURDAY
+                    || timeSlot.getStartDate().getDayOfWeek() == DayOfWeek.SUNDAY));
+            for (Appointment appointment : appointmentRepository.findByPractitionerId(practitionerId)) {
+                assertTrue(timeSlots.stream().anyMatch(timeSlot -> !appointment.getStartDate().isBefore(timeSlot.getStartDate())
+                        && !appointment.getEndDate().isAfter(timeSlot.getEndDate())));
+            }
+            assertFalse(proAvailabilityService.findByPractitionerId(practitionerId).isEmpty());
+        }
+    }
+
+    private List<Integer> lastIds(int count) {
+        List<Integer> ids = practitionerRepository.findAllIds();
+        return ids.subList(ids.size() - count, ids.size());
+    }
+}